@@ -1,34 +1,95 @@
 package com.rustorder.api.order.config;
 
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.rustorder.api.order.model.Cart;
+import com.rustorder.api.order.support.CartRedisCodec;
+import com.rustorder.api.order.support.CompactRedisSerializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
-import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
 @Configuration
 @EnableCaching
+@EnableConfigurationProperties(CacheProperties.class)
 public class CacheConfig {
     
     /**
-     * 简单缓存管理器 - 默认使用
+     * 本地缓存管理器 - 默认使用
+     * 基于Caffeine（W-TinyLFU淘汰），每个缓存按rustorder.cache配置限制容量与过期时间
      */
     @Bean
     @Primary
-    public CacheManager simpleCacheManager() {
-        return new ConcurrentMapCacheManager("orders");
+    public CacheManager cacheManager(CacheProperties properties) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        // 未在配置中声明的缓存按默认策略按需创建
+        cacheManager.setCaffeine(buildCaffeine("default", properties.getDefaults()));
+        properties.getCaches().forEach((name, spec) ->
+            cacheManager.registerCustomCache(name, buildCaffeine(name, spec.withDefaults(properties.getDefaults())).build()));
+        return cacheManager;
+    }
+    
+    private static Caffeine<Object, Object> buildCaffeine(String name, CacheProperties.Spec spec) {
+        if (spec.getMaximumSize() != null && spec.getMaximumWeight() != null) {
+            throw new IllegalStateException("缓存" + name + "不能同时配置maximum-size和maximum-weight");
+        }
+        Caffeine<Object, Object> builder = Caffeine.newBuilder();
+        if (spec.getMaximumSize() != null) {
+            builder.maximumSize(spec.getMaximumSize());
+        }
+        if (spec.getMaximumWeight() != null) {
+            builder.maximumWeight(spec.getMaximumWeight()).weigher(CacheConfig::weigh);
+        }
+        if (spec.getExpireAfterWrite() != null) {
+            builder.expireAfterWrite(spec.getExpireAfterWrite());
+        }
+        if (spec.getExpireAfterAccess() != null) {
+            builder.expireAfterAccess(spec.getExpireAfterAccess());
+        }
+        // 统计默认开启，供/api/admin/cache/stats查看
+        if (!Boolean.FALSE.equals(spec.getRecordStats())) {
+            builder.recordStats();
+        }
+        return builder;
+    }
+    
+    /**
+     * 缓存值的权重：集合按元素个数计算，避免一个大列表只占一个名额；购物车按商品数计算
+     */
+    private static int weigh(Object key, Object value) {
+        if (value instanceof Cart cart) {
+            return 1 + cart.getItems().size();
+        }
+        if (value instanceof Collection<?> collection) {
+            return Math.max(1, collection.size());
+        }
+        if (value instanceof Map<?, ?> map) {
+            return Math.max(1, map.size());
+        }
+        return 1;
     }
     
     /**
      * RedisTemplate配置 - 用于购物车存储
+     * 值按rustorder.redis.value-format写入：binary（默认）时已注册的类型使用紧凑二进制格式，其余仍为JSON；
+     * 无论哪种设置，两种格式都能读取
      */
     @Bean
-    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory connectionFactory) {
+    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory connectionFactory,
+                                                       @Value("${rustorder.redis.value-format:binary}") String valueFormat) {
         RedisTemplate<String, Object> template = new RedisTemplate<>();
         template.setConnectionFactory(connectionFactory);
         
@@ -36,9 +97,13 @@ public class CacheConfig {
         template.setKeySerializer(new StringRedisSerializer());
         template.setHashKeySerializer(new StringRedisSerializer());
         
-        // 使用JSON序列化器作为value的序列化器
-        template.setValueSerializer(new GenericJackson2JsonRedisSerializer());
-        template.setHashValueSerializer(new GenericJackson2JsonRedisSerializer());
+        // value使用紧凑二进制格式，未注册的类型和旧的JSON数据交给JSON序列化器
+        RedisSerializer<Object> valueSerializer = new CompactRedisSerializer(
+            List.of(new CartRedisCodec()),
+            new GenericJackson2JsonRedisSerializer(),
+            "binary".equalsIgnoreCase(valueFormat));
+        template.setValueSerializer(valueSerializer);
+        template.setHashValueSerializer(valueSerializer);
         
         template.afterPropertiesSet();
         return template;
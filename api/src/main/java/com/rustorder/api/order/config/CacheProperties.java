@@ -0,0 +1,72 @@
+package com.rustorder.api.order.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 本地缓存配置，按缓存名分别设置容量与过期策略
+ * 例如：rustorder.cache.caches.orders.maximum-weight=10000
+ */
+@Data
+@ConfigurationProperties(prefix = "rustorder.cache")
+public class CacheProperties {
+
+    /**
+     * 未单独配置的缓存使用的默认策略
+     */
+    private Spec defaults = new Spec();
+
+    /**
+     * 按缓存名配置的策略，未设置的项继承默认策略
+     */
+    private Map<String, Spec> caches = new LinkedHashMap<>();
+
+    @Data
+    public static class Spec {
+
+        /**
+         * 最大条目数，与maximumWeight二选一
+         */
+        private Long maximumSize;
+
+        /**
+         * 最大总权重，集合类型的值按元素个数计权重，其余值权重为1
+         */
+        private Long maximumWeight;
+
+        /**
+         * 写入后过期时间
+         */
+        private Duration expireAfterWrite;
+
+        /**
+         * 访问后过期时间
+         */
+        private Duration expireAfterAccess;
+
+        /**
+         * 是否记录命中、未命中、淘汰等统计
+         */
+        private Boolean recordStats;
+
+        /**
+         * 以当前配置为准，未设置的项使用默认策略补齐
+         * 容量与过期各自成组继承：配置了其中一种过期方式时不再继承默认的另一种
+         */
+        Spec withDefaults(Spec defaults) {
+            Spec merged = new Spec();
+            boolean sizeConfigured = maximumSize != null || maximumWeight != null;
+            merged.setMaximumSize(sizeConfigured ? maximumSize : defaults.getMaximumSize());
+            merged.setMaximumWeight(sizeConfigured ? maximumWeight : defaults.getMaximumWeight());
+            boolean expiryConfigured = expireAfterWrite != null || expireAfterAccess != null;
+            merged.setExpireAfterWrite(expiryConfigured ? expireAfterWrite : defaults.getExpireAfterWrite());
+            merged.setExpireAfterAccess(expiryConfigured ? expireAfterAccess : defaults.getExpireAfterAccess());
+            merged.setRecordStats(recordStats != null ? recordStats : defaults.getRecordStats());
+            return merged;
+        }
+    }
+}
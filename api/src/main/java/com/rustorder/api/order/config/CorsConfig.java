@@ -26,6 +26,7 @@ public class CorsConfig implements WebMvcConfigurer {
                 )
                 .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS")
                 .allowedHeaders("*")
+                .exposedHeaders("X-Next-Cursor", "ETag", "X-Catalog-Version")
                 .allowCredentials(false)
                 .maxAge(3600);
     }
@@ -47,6 +48,9 @@ public class CorsConfig implements WebMvcConfigurer {
         configuration.addAllowedMethod("DELETE");
         configuration.addAllowedMethod("OPTIONS");
         configuration.addAllowedHeader("*");
+        configuration.addExposedHeader("X-Next-Cursor");
+        configuration.addExposedHeader("ETag");
+        configuration.addExposedHeader("X-Catalog-Version");
         configuration.setAllowCredentials(false);
         configuration.setMaxAge(3600L);
 
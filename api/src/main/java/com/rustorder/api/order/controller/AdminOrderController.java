@@ -1,11 +1,16 @@
 package com.rustorder.api.order.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rustorder.api.order.dto.OrderDeltaResponse;
 import com.rustorder.api.order.dto.OrderResponse;
 import com.rustorder.api.order.model.OrderStatus;
 import com.rustorder.api.order.service.ImprovedOrderService;
+import com.rustorder.api.order.support.NdjsonStreams;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.Map;
@@ -15,10 +20,12 @@ import java.util.Map;
 public class AdminOrderController {
     
     private final ImprovedOrderService orderService;
+    private final ObjectMapper objectMapper;
     
     @Autowired
-    public AdminOrderController(ImprovedOrderService orderService) {
+    public AdminOrderController(ImprovedOrderService orderService, ObjectMapper objectMapper) {
         this.orderService = orderService;
+        this.objectMapper = objectMapper;
     }
     
     /**
@@ -31,12 +38,31 @@ public class AdminOrderController {
     }
     
     /**
-     * 获取所有订单
+     * 获取队列增量，客户端断线重连后从上次的序号继续；增量已不可用时返回完整快照
+     */
+    @GetMapping("/deltas")
+    public ResponseEntity<OrderDeltaResponse> getOrderQueueDeltas(@RequestParam(required = false) Long epoch,
+                                                                  @RequestParam(required = false) Long since) {
+        return ResponseEntity.ok(orderService.getOrderQueueDeltas(epoch, since));
+    }
+    
+    /**
+     * 分页获取所有订单，可按状态过滤，下一页游标通过X-Next-Cursor响应头返回
      */
     @GetMapping("/all")
-    public ResponseEntity<List<OrderResponse>> getAllOrders() {
-        List<OrderResponse> orders = orderService.getAllOrders();
-        return ResponseEntity.ok(orders);
+    public ResponseEntity<List<OrderResponse>> getAllOrders(@RequestParam(required = false) String cursor,
+                                                            @RequestParam(required = false) Integer size,
+                                                            @RequestParam(required = false) List<String> status) {
+        return OrderController.pageResponse(orderService, cursor, size, status);
+    }
+    
+    /**
+     * 以NDJSON格式流式导出所有订单
+     */
+    @GetMapping(value = "/all/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllOrders() {
+        StreamingResponseBody body = NdjsonStreams.of(objectMapper, orderService::streamAllOrders);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
     }
     
     /**
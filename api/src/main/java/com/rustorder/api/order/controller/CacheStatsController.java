@@ -0,0 +1,75 @@
+package com.rustorder.api.order.controller;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Policy;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.rustorder.api.order.dto.CacheStatsResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+@RestController
+@RequestMapping("/api/admin/cache")
+public class CacheStatsController {
+
+    private final CacheManager cacheManager;
+
+    @Autowired
+    public CacheStatsController(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    /**
+     * 获取所有缓存的命中、未命中与淘汰统计
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<List<CacheStatsResponse>> getAllStats() {
+        List<CacheStatsResponse> stats = cacheManager.getCacheNames().stream()
+            .sorted()
+            .map(this::toStats)
+            .flatMap(Optional::stream)
+            .collect(Collectors.toList());
+        return ResponseEntity.ok(stats);
+    }
+
+    /**
+     * 获取指定缓存的统计
+     */
+    @GetMapping("/stats/{name}")
+    public ResponseEntity<CacheStatsResponse> getStats(@PathVariable String name) {
+        return toStats(name)
+            .map(ResponseEntity::ok)
+            .orElse(ResponseEntity.notFound().build());
+    }
+
+    private Optional<CacheStatsResponse> toStats(String name) {
+        // 先检查名称，避免按需创建的缓存管理器为不存在的名称新建缓存
+        if (!cacheManager.getCacheNames().contains(name)
+            || !(cacheManager.getCache(name) instanceof CaffeineCache caffeineCache)) {
+            return Optional.empty();
+        }
+        Cache<Object, Object> cache = caffeineCache.getNativeCache();
+        CacheStats stats = cache.stats();
+        Optional<Policy.Eviction<Object, Object>> eviction = cache.policy().eviction();
+        return Optional.of(new CacheStatsResponse(
+            name,
+            cache.estimatedSize(),
+            eviction.filter(Policy.Eviction::isWeighted).map(e -> e.weightedSize().getAsLong()).orElse(null),
+            eviction.map(Policy.Eviction::getMaximum).orElse(null),
+            stats.hitCount(),
+            stats.missCount(),
+            stats.hitRate(),
+            stats.evictionCount(),
+            stats.evictionWeight()
+        ));
+    }
+}
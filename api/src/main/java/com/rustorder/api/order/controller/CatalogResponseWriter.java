@@ -0,0 +1,148 @@
+package com.rustorder.api.order.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rustorder.api.order.service.DishCatalogService;
+import com.rustorder.api.order.support.DishCatalogSnapshot;
+import com.rustorder.api.order.support.RenderedPayload;
+import com.rustorder.api.order.support.VersionedViewCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 菜品目录的条件响应
+ * 每个视图在一个目录版本内只序列化一次，gzip字节和ETag在第一次需要时计算后保留；
+ * 包含实时评分的视图按排名版本缓存，同样只序列化一次；
+ * 请求携带匹配的If-None-Match时直接返回304，不再序列化也不传输响应体
+ */
+@Component
+public class CatalogResponseWriter {
+    
+    static final String CATALOG_VERSION_HEADER = "X-Catalog-Version";
+    
+    private final DishCatalogService dishCatalogService;
+    private final ObjectMapper objectMapper;
+    // 包含实时评分的视图，随排名版本失效
+    private final VersionedViewCache liveViews = new VersionedViewCache();
+    
+    @Autowired
+    public CatalogResponseWriter(DishCatalogService dishCatalogService, ObjectMapper objectMapper) {
+        this.dishCatalogService = dishCatalogService;
+        this.objectMapper = objectMapper;
+    }
+    
+    /**
+     * 输出目录视图
+     * @param requestHeaders 请求头（读取If-None-Match与Accept-Encoding）
+     * @param viewKey        视图标识，需包含影响结果的全部参数
+     * @param view           从快照中取出视图数据
+     */
+    public ResponseEntity<byte[]> write(HttpHeaders requestHeaders, String viewKey, Function<DishCatalogSnapshot, ?> view) {
+        return writeOptional(requestHeaders, viewKey, snapshot -> Optional.of(view.apply(snapshot)));
+    }
+    
+    /**
+     * 输出可能不存在的目录视图（如按ID查询），不存在时返回404
+     */
+    public ResponseEntity<byte[]> writeOptional(HttpHeaders requestHeaders, String viewKey,
+                                                Function<DishCatalogSnapshot, Optional<?>> view) {
+        DishCatalogSnapshot snapshot = dishCatalogService.snapshot();
+        Optional<RenderedPayload> payload = snapshot.rendered(viewKey, () -> view.apply(snapshot).map(this::render));
+        return respond(requestHeaders, snapshot, payload);
+    }
+    
+    /**
+     * 输出包含未落库评分的视图（排名、单个菜品），按排名版本缓存渲染结果
+     * @param viewKey 视图标识，需包含影响结果的全部参数
+     * @param view    读取视图数据，在取得排名版本之后调用
+     */
+    public ResponseEntity<byte[]> writeLive(HttpHeaders requestHeaders, String viewKey, Supplier<Optional<?>> view) {
+        long version = dishCatalogService.rankVersion();
+        DishCatalogSnapshot snapshot = dishCatalogService.snapshot();
+        Optional<RenderedPayload> payload = liveViews.rendered(version, viewKey, () -> view.get().map(this::render));
+        return respond(requestHeaders, snapshot, payload);
+    }
+    
+    private ResponseEntity<byte[]> respond(HttpHeaders requestHeaders, DishCatalogSnapshot snapshot,
+                                           Optional<RenderedPayload> payload) {
+        if (payload.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        
+        RenderedPayload rendered = payload.get();
+        boolean gzip = acceptsGzip(requestHeaders.getFirst(HttpHeaders.ACCEPT_ENCODING));
+        String etag = gzip ? rendered.gzipEtag() : rendered.etag();
+        
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(etag);
+        headers.setCacheControl(CacheControl.noCache());
+        headers.setVary(List.of(HttpHeaders.ACCEPT_ENCODING));
+        headers.set(CATALOG_VERSION_HEADER, String.valueOf(snapshot.getVersion()));
+        if (matches(requestHeaders.getIfNoneMatch(), rendered)) {
+            return new ResponseEntity<>(headers, HttpStatus.NOT_MODIFIED);
+        }
+        
+        byte[] body = gzip ? rendered.gzip() : rendered.json();
+        if (gzip) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setContentLength(body.length);
+        return new ResponseEntity<>(body, headers, HttpStatus.OK);
+    }
+    
+    private RenderedPayload render(Object view) {
+        try {
+            return RenderedPayload.of(objectMapper.writeValueAsBytes(view));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("菜品目录序列化失败", e);
+        }
+    }
+    
+    /**
+     * 两种编码的ETag对应同一内容，任一匹配即视为未修改
+     */
+    private static boolean matches(Iterable<String> ifNoneMatch, RenderedPayload payload) {
+        for (String tag : ifNoneMatch) {
+            String candidate = tag.trim();
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if ("*".equals(candidate) || candidate.equals(payload.etag()) || candidate.equals(payload.gzipEtag())) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String part : acceptEncoding.split(",")) {
+            String[] tokens = part.trim().split(";");
+            String coding = tokens[0].trim();
+            if (!"gzip".equalsIgnoreCase(coding) && !"*".equals(coding)) {
+                continue;
+            }
+            for (int i = 1; i < tokens.length; i++) {
+                String param = tokens[i].trim().replace(" ", "");
+                if (param.equals("q=0") || param.matches("q=0\\.0{0,3}")) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+}
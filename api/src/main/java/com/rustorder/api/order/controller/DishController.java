@@ -1,13 +1,14 @@
 package com.rustorder.api.order.controller;
 
 import com.rustorder.api.order.model.Dish;
-import com.rustorder.api.order.repository.DishRepository;
+import com.rustorder.api.order.service.DishCatalogService;
+import com.rustorder.api.order.support.DishCatalogSnapshot;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -16,97 +17,79 @@ import java.util.Optional;
 @RequestMapping("/api/dishes")
 public class DishController {
     
-    private final DishRepository dishRepository;
+    private final DishCatalogService dishCatalogService;
+    private final CatalogResponseWriter catalogResponseWriter;
     
     @Autowired
-    public DishController(DishRepository dishRepository) {
-        this.dishRepository = dishRepository;
+    public DishController(DishCatalogService dishCatalogService, CatalogResponseWriter catalogResponseWriter) {
+        this.dishCatalogService = dishCatalogService;
+        this.catalogResponseWriter = catalogResponseWriter;
     }
     
+    // 以下读取接口返回预渲染的JSON，支持ETag条件请求与gzip；
+    // 单个菜品和排名包含未落库的评分，按排名版本缓存
+    
     /**
      * 获取所有可用菜品（用户端）
      */
     @GetMapping
-    public ResponseEntity<List<Dish>> getAllAvailableDishes() {
-        List<Dish> dishes = dishRepository.findByIsAvailableOrderByDishTypeAscSortOrderAsc(true);
-        return ResponseEntity.ok(dishes);
+    public ResponseEntity<byte[]> getAllAvailableDishes(@RequestHeader HttpHeaders headers) {
+        return catalogResponseWriter.write(headers, "dishes", DishCatalogSnapshot::getAvailableDishes);
     }
     
     /**
      * 根据类型获取菜品
      */
     @GetMapping("/type/{dishType}")
-    public ResponseEntity<List<Dish>> getDishesByType(@PathVariable String dishType) {
-        List<Dish> dishes = dishRepository.findByDishTypeAndIsAvailableOrderBySortOrderAscPriceAsc(dishType, true);
-        return ResponseEntity.ok(dishes);
+    public ResponseEntity<byte[]> getDishesByType(@RequestHeader HttpHeaders headers, @PathVariable String dishType) {
+        return catalogResponseWriter.write(headers, "dishes-type:" + dishType,
+                snapshot -> snapshot.getAvailableDishesByType(dishType));
     }
     
     /**
      * 获取热门菜品（基于销量和评分）
      */
     @GetMapping("/popular")
-    public ResponseEntity<List<Dish>> getPopularDishes(@RequestParam(defaultValue = "6") int limit) {
-        List<Dish> popularDishes;
-        
-        if (limit <= 10) {
-            // 使用预定义的Top10查询方法
-            popularDishes = dishRepository.findTop10ByIsAvailableOrderBySalesCountDescRatingDescCreatedAtDesc(true);
-        } else {
-            // 获取所有热门菜品然后限制数量
-            popularDishes = dishRepository.findByIsAvailableOrderBySalesCountDescRatingDescCreatedAtDesc(true);
-        }
-        
-        // 限制返回数量
-        List<Dish> result = popularDishes.stream()
-                .limit(limit)
-                .toList();
-        
-        return ResponseEntity.ok(result);
+    public ResponseEntity<byte[]> getPopularDishes(@RequestHeader HttpHeaders headers,
+                                                   @RequestParam(defaultValue = "6") int limit) {
+        return catalogResponseWriter.writeLive(headers, "dishes-popular:" + limit,
+                () -> Optional.of(dishCatalogService.getPopularDishes(limit)));
     }
     
     /**
      * 获取高评分菜品
      */
     @GetMapping("/top-rated")
-    public ResponseEntity<List<Dish>> getTopRatedDishes(
+    public ResponseEntity<byte[]> getTopRatedDishes(
+            @RequestHeader HttpHeaders headers,
             @RequestParam(defaultValue = "4.0") double minRating,
             @RequestParam(defaultValue = "6") int limit) {
-        List<Dish> topRatedDishes = dishRepository
-                .findByIsAvailableAndRatingGreaterThanEqualOrderByRatingDescSalesCountDesc(true, minRating);
-        
-        List<Dish> result = topRatedDishes.stream()
-                .limit(limit)
-                .toList();
-        
-        return ResponseEntity.ok(result);
+        return catalogResponseWriter.writeLive(headers, "dishes-top-rated:" + minRating + ":" + limit,
+                () -> Optional.of(dishCatalogService.getTopRatedDishes(minRating, limit)));
     }
     
     /**
      * 获取新品推荐
      */
     @GetMapping("/new-arrivals")
-    public ResponseEntity<List<Dish>> getNewArrivals() {
-        List<Dish> newDishes = dishRepository.findTop5ByIsAvailableOrderByCreatedAtDesc(true);
-        return ResponseEntity.ok(newDishes);
+    public ResponseEntity<byte[]> getNewArrivals(@RequestHeader HttpHeaders headers) {
+        return catalogResponseWriter.write(headers, "dishes-new-arrivals", DishCatalogSnapshot::getNewArrivals);
     }
     
     /**
      * 根据ID获取菜品详情
      */
     @GetMapping("/{id}")
-    public ResponseEntity<Dish> getDishById(@PathVariable Long id) {
-        Optional<Dish> dish = dishRepository.findById(id);
-        return dish.map(ResponseEntity::ok)
-                .orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<byte[]> getDishById(@RequestHeader HttpHeaders headers, @PathVariable Long id) {
+        return catalogResponseWriter.writeLive(headers, "dish:" + id, () -> dishCatalogService.getDish(id));
     }
     
     /**
      * 获取所有菜品（管理员，包括已下架的）
      */
     @GetMapping("/admin")
-    public ResponseEntity<List<Dish>> getAllDishesForAdmin() {
-        List<Dish> dishes = dishRepository.findAll();
-        return ResponseEntity.ok(dishes);
+    public ResponseEntity<byte[]> getAllDishesForAdmin(@RequestHeader HttpHeaders headers) {
+        return catalogResponseWriter.write(headers, "dishes-admin", DishCatalogSnapshot::getAllDishes);
     }
     
     /**
@@ -115,24 +98,7 @@ public class DishController {
     @PostMapping("/admin")
     public ResponseEntity<Dish> createDish(@RequestBody Dish dish) {
         try {
-            dish.setCreatedAt(new Date());
-            dish.setUpdatedAt(new Date());
-            if (dish.getIsAvailable() == null) {
-                dish.setIsAvailable(true);
-            }
-            if (dish.getSortOrder() == null) {
-                dish.setSortOrder(0);
-            }
-            if (dish.getSalesCount() == null) {
-                dish.setSalesCount(0);
-            }
-            if (dish.getRating() == null) {
-                dish.setRating(0.0);
-            }
-            if (dish.getRatingCount() == null) {
-                dish.setRatingCount(0);
-            }
-            Dish savedDish = dishRepository.save(dish);
+            Dish savedDish = dishCatalogService.createDish(dish);
             return new ResponseEntity<>(savedDish, HttpStatus.CREATED);
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
@@ -145,18 +111,9 @@ public class DishController {
     @PutMapping("/admin/{id}")
     public ResponseEntity<Dish> updateDish(@PathVariable Long id, @RequestBody Dish dish) {
         try {
-            Optional<Dish> existingDish = dishRepository.findById(id);
-            if (existingDish.isEmpty()) {
-                return ResponseEntity.notFound().build();
-            }
-            
-            dish.setId(id);
-            dish.setUpdatedAt(new Date());
-            // 保留创建时间
-            dish.setCreatedAt(existingDish.get().getCreatedAt());
-            
-            Dish updatedDish = dishRepository.save(dish);
-            return ResponseEntity.ok(updatedDish);
+            return dishCatalogService.updateDish(id, dish)
+                    .map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.notFound().build());
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
@@ -168,10 +125,9 @@ public class DishController {
     @DeleteMapping("/admin/{id}")
     public ResponseEntity<Void> deleteDish(@PathVariable Long id) {
         try {
-            if (!dishRepository.existsById(id)) {
+            if (!dishCatalogService.deleteDish(id)) {
                 return ResponseEntity.notFound().build();
             }
-            dishRepository.deleteById(id);
             return ResponseEntity.noContent().build();
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
@@ -186,18 +142,10 @@ public class DishController {
             @PathVariable Long id, 
             @RequestBody Map<String, Boolean> request) {
         try {
-            Optional<Dish> dishOpt = dishRepository.findById(id);
-            if (dishOpt.isEmpty()) {
-                return ResponseEntity.notFound().build();
-            }
-            
-            Dish dish = dishOpt.get();
             Boolean isAvailable = request.get("isAvailable");
-            dish.setIsAvailable(isAvailable);
-            dish.setUpdatedAt(new Date());
-            
-            Dish updatedDish = dishRepository.save(dish);
-            return ResponseEntity.ok(updatedDish);
+            return dishCatalogService.setDishAvailability(id, isAvailable)
+                    .map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.notFound().build());
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
@@ -209,28 +157,7 @@ public class DishController {
     @PostMapping("/admin/batch")
     public ResponseEntity<List<Dish>> createDishesInBatch(@RequestBody List<Dish> dishes) {
         try {
-            Date now = new Date();
-            dishes.forEach(dish -> {
-                dish.setCreatedAt(now);
-                dish.setUpdatedAt(now);
-                if (dish.getIsAvailable() == null) {
-                    dish.setIsAvailable(true);
-                }
-                if (dish.getSortOrder() == null) {
-                    dish.setSortOrder(0);
-                }
-                if (dish.getSalesCount() == null) {
-                    dish.setSalesCount(0);
-                }
-                if (dish.getRating() == null) {
-                    dish.setRating(0.0);
-                }
-                if (dish.getRatingCount() == null) {
-                    dish.setRatingCount(0);
-                }
-            });
-            
-            List<Dish> savedDishes = dishRepository.saveAll(dishes);
+            List<Dish> savedDishes = dishCatalogService.createDishes(dishes);
             return new ResponseEntity<>(savedDishes, HttpStatus.CREATED);
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
@@ -245,12 +172,6 @@ public class DishController {
             @PathVariable Long id, 
             @RequestBody Map<String, Double> request) {
         try {
-            Optional<Dish> dishOpt = dishRepository.findById(id);
-            if (dishOpt.isEmpty()) {
-                return ResponseEntity.notFound().build();
-            }
-            
-            Dish dish = dishOpt.get();
             Double newRating = request.get("rating");
             
             // 验证评分范围
@@ -258,23 +179,9 @@ public class DishController {
                 return ResponseEntity.badRequest().build();
             }
             
-            // 计算新的平均评分
-            int currentRatingCount = dish.getRatingCount();
-            double currentRating = dish.getRating();
-            
-            // 新的评分总数
-            int newRatingCount = currentRatingCount + 1;
-            
-            // 计算新的平均评分
-            double newAverageRating = ((currentRating * currentRatingCount) + newRating) / newRatingCount;
-            
-            // 更新菜品评分信息
-            dish.setRating(Math.round(newAverageRating * 100.0) / 100.0); // 保留两位小数
-            dish.setRatingCount(newRatingCount);
-            dish.setUpdatedAt(new Date());
-            
-            Dish updatedDish = dishRepository.save(dish);
-            return ResponseEntity.ok(updatedDish);
+            return dishCatalogService.rateDish(id, newRating)
+                    .map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.notFound().build());
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
@@ -286,23 +193,14 @@ public class DishController {
     @PostMapping("/{id}/increment-sales")
     public ResponseEntity<Dish> incrementSales(@PathVariable Long id, @RequestBody Map<String, Integer> request) {
         try {
-            Optional<Dish> dishOpt = dishRepository.findById(id);
-            if (dishOpt.isEmpty()) {
-                return ResponseEntity.notFound().build();
-            }
-            
-            Dish dish = dishOpt.get();
             Integer quantity = request.get("quantity");
             if (quantity == null || quantity <= 0) {
                 quantity = 1;
             }
             
-            // 增加销量
-            dish.setSalesCount(dish.getSalesCount() + quantity);
-            dish.setUpdatedAt(new Date());
-            
-            Dish updatedDish = dishRepository.save(dish);
-            return ResponseEntity.ok(updatedDish);
+            return dishCatalogService.incrementSales(id, quantity)
+                    .map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.notFound().build());
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
@@ -2,52 +2,52 @@ package com.rustorder.api.order.controller;
 
 import com.rustorder.api.order.model.Menu;
 import com.rustorder.api.order.service.MenuService;
+import com.rustorder.api.order.support.DishCatalogSnapshot;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/menu")
 public class MenuController {
     
     private final MenuService menuService;
+    private final CatalogResponseWriter catalogResponseWriter;
     
     @Autowired
-    public MenuController(MenuService menuService) {
+    public MenuController(MenuService menuService, CatalogResponseWriter catalogResponseWriter) {
         this.menuService = menuService;
+        this.catalogResponseWriter = catalogResponseWriter;
     }
     
     /**
-     * 获取所有可用菜品（手机端用）
+     * 获取所有可用菜品（手机端用），返回预渲染的JSON并支持ETag条件请求
      */
     @GetMapping
-    public ResponseEntity<List<Menu>> getAvailableMenu() {
-        List<Menu> menuItems = menuService.getAvailableMenuItems();
-        return ResponseEntity.ok(menuItems);
+    public ResponseEntity<byte[]> getAvailableMenu(@RequestHeader HttpHeaders headers) {
+        return catalogResponseWriter.write(headers, "menu", DishCatalogSnapshot::getAvailableMenus);
     }
     
     /**
      * 根据菜品类型获取菜品
      */
     @GetMapping("/type/{dishType}")
-    public ResponseEntity<List<Menu>> getMenuByType(@PathVariable String dishType) {
-        List<Menu> menuItems = menuService.getAvailableMenuItemsByType(dishType);
-        return ResponseEntity.ok(menuItems);
+    public ResponseEntity<byte[]> getMenuByType(@RequestHeader HttpHeaders headers, @PathVariable String dishType) {
+        return catalogResponseWriter.write(headers, "menu-type:" + dishType,
+                snapshot -> snapshot.getAvailableMenusByType(dishType));
     }
     
     /**
      * 根据菜品名称获取菜品详情
      */
     @GetMapping("/dish/{dishName}")
-    public ResponseEntity<Menu> getMenuItemByName(@PathVariable String dishName) {
-        Optional<Menu> menuItem = menuService.getMenuItemByName(dishName);
-        return menuItem.map(ResponseEntity::ok)
-                .orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<byte[]> getMenuItemByName(@RequestHeader HttpHeaders headers, @PathVariable String dishName) {
+        return catalogResponseWriter.writeOptional(headers, "menu-dish:" + dishName,
+                snapshot -> snapshot.getAvailableMenuByName(dishName));
     }
     
     /**
@@ -0,0 +1,28 @@
+package com.rustorder.api.order.controller;
+
+import com.rustorder.api.order.service.OrderNotificationDispatcher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/admin/notifications")
+public class NotificationStatsController {
+
+    private final OrderNotificationDispatcher notificationDispatcher;
+
+    @Autowired
+    public NotificationStatsController(OrderNotificationDispatcher notificationDispatcher) {
+        this.notificationDispatcher = notificationDispatcher;
+    }
+
+    /**
+     * 获取订单通知发送队列的深度、丢弃与合并统计
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<OrderNotificationDispatcher.Metrics> getStats() {
+        return ResponseEntity.ok(notificationDispatcher.getMetrics());
+    }
+}
@@ -1,15 +1,21 @@
 package com.rustorder.api.order.controller;
 
 import com.rustorder.api.order.model.OrderNew;
+import com.rustorder.api.order.model.OrderStatus;
 import com.rustorder.api.order.dto.CreateOrderRequest;
+import com.rustorder.api.order.dto.OrderPageResponse;
 import com.rustorder.api.order.dto.OrderResponse;
 import com.rustorder.api.order.dto.QueuePositionResponse;
 import com.rustorder.api.order.service.ImprovedOrderService;
 import com.rustorder.api.order.repository.OrderNewRepository;
+import com.rustorder.api.order.support.NdjsonStreams;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -17,18 +23,58 @@ import java.util.List;
 @RequestMapping("/api/orders")
 public class OrderController {
 
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final ImprovedOrderService orderService;
     private final OrderNewRepository orderRepository;
+    private final ObjectMapper objectMapper;
 
     @Autowired
-    public OrderController(ImprovedOrderService orderService, OrderNewRepository orderRepository) {
+    public OrderController(ImprovedOrderService orderService, OrderNewRepository orderRepository, ObjectMapper objectMapper) {
         this.orderService = orderService;
         this.orderRepository = orderRepository;
+        this.objectMapper = objectMapper;
     }
 
+    /**
+     * 分页获取订单（按创建时间倒序），响应体为订单数组，下一页游标通过X-Next-Cursor响应头返回
+     * 可按状态过滤，如status=COMPLETED,CANCELLED
+     */
     @GetMapping
-    public ResponseEntity<List<OrderResponse>> getAllOrders() {
-        return ResponseEntity.ok(orderService.getAllOrders());
+    public ResponseEntity<List<OrderResponse>> getAllOrders(@RequestParam(required = false) String cursor,
+                                                            @RequestParam(required = false) Integer size,
+                                                            @RequestParam(required = false) List<String> status) {
+        return pageResponse(orderService, cursor, size, status);
+    }
+
+    /**
+     * 查询一页订单，游标或状态无效时返回400，下一页游标通过X-Next-Cursor响应头返回
+     */
+    static ResponseEntity<List<OrderResponse>> pageResponse(ImprovedOrderService orderService, String cursor, Integer size,
+                                                            List<String> status) {
+        OrderPageResponse page;
+        try {
+            List<OrderStatus> statuses = status == null ? null : status.stream()
+                .map(value -> OrderStatus.valueOf(value.trim().toUpperCase()))
+                .toList();
+            page = orderService.getOrderPage(cursor, size, statuses);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            builder.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return builder.body(page.getOrders());
+    }
+
+    /**
+     * 以NDJSON格式流式导出全部订单，每行一个订单
+     */
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllOrders() {
+        StreamingResponseBody body = NdjsonStreams.of(objectMapper, orderService::streamAllOrders);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
     }
 
     @GetMapping("/{id}")
@@ -0,0 +1,59 @@
+package com.rustorder.api.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 缓存统计响应DTO
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheStatsResponse {
+    
+    /**
+     * 缓存名称
+     */
+    private String name;
+    
+    /**
+     * 当前条目数（估算值）
+     */
+    private long estimatedSize;
+    
+    /**
+     * 当前总权重，未按权重限制时为null
+     */
+    private Long weightedSize;
+    
+    /**
+     * 容量上限（条目数或总权重），不限制时为null
+     */
+    private Long maximum;
+    
+    /**
+     * 命中次数
+     */
+    private long hitCount;
+    
+    /**
+     * 未命中次数
+     */
+    private long missCount;
+    
+    /**
+     * 命中率
+     */
+    private double hitRate;
+    
+    /**
+     * 淘汰条目数
+     */
+    private long evictionCount;
+    
+    /**
+     * 淘汰的总权重
+     */
+    private long evictionWeight;
+}
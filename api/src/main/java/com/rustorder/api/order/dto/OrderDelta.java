@@ -0,0 +1,46 @@
+package com.rustorder.api.order.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * 订单队列增量DTO
+ * 活跃订单读模型的每次变化对应一条增量，序号连续递增，客户端按序号应用即可与服务端保持一致
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class OrderDelta {
+    
+    public enum Type {
+        ADDED,          // 订单进入队列，order为完整订单
+        STATUS_CHANGED, // 订单状态变化，changes中包含orderStatus
+        UPDATED,        // 订单内容变化，状态不变
+        REMOVED         // 订单离开队列（完成、取消或被删除）
+    }
+    
+    /**
+     * 增量序号，同一epoch内从1开始连续递增
+     */
+    private long sequence;
+    
+    private Type type;
+    
+    private Long orderId;
+    
+    /**
+     * 完整订单，仅ADDED时填写
+     */
+    private OrderResponse order;
+    
+    /**
+     * 发生变化的字段及其新值，STATUS_CHANGED、UPDATED时填写；
+     * REMOVED时为进入终态的订单填写orderStatus，被删除的订单为null
+     */
+    private Map<String, Object> changes;
+}
@@ -0,0 +1,41 @@
+package com.rustorder.api.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 订单队列增量响应DTO
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderDeltaResponse {
+    
+    /**
+     * 读模型的版本，服务重启或重建读模型后改变，之前的序号随之失效
+     */
+    private long epoch;
+    
+    /**
+     * 当前最新的增量序号，客户端下次请求时作为since传入
+     */
+    private long lastSequence;
+    
+    /**
+     * 是否为完整快照；为true时客户端应丢弃本地队列，改用orders
+     */
+    private boolean snapshot;
+    
+    /**
+     * since之后的增量，快照时为空列表
+     */
+    private List<OrderDelta> deltas;
+    
+    /**
+     * 全部活跃订单（按队列号排序），仅快照时填写
+     */
+    private List<OrderResponse> orders;
+}
@@ -27,4 +27,8 @@ public class OrderItemResponse {
     private Integer estimatedTime;
     
     private String itemNotes;
+    
+    public OrderItemResponse copy() {
+        return new OrderItemResponse(id, dishName, dishType, unitPrice, quantity, subtotal, estimatedTime, itemNotes);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,26 @@
+package com.rustorder.api.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 订单分页响应DTO
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderPageResponse {
+    
+    /**
+     * 当前页的订单（按创建时间倒序）
+     */
+    private List<OrderResponse> orders;
+    
+    /**
+     * 下一页游标，没有更多数据时为null
+     */
+    private String nextCursor;
+}
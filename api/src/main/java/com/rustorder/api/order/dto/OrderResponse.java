@@ -7,6 +7,7 @@ import lombok.AllArgsConstructor;
 
 import java.util.Date;
 import java.util.List;
+import java.util.stream.Collectors;
 
 /**
  * 订单响应DTO
@@ -37,4 +38,17 @@ public class OrderResponse {
     private Date updatedAt;
     
     private List<OrderItemResponse> items;
+    
+    /**
+     * 深拷贝，用于从缓存中返回互不影响的副本
+     */
+    public OrderResponse copy() {
+        return new OrderResponse(id, userId, pickupCode, orderStatus, queueNumber, notes, totalPrice, totalEstimatedTime,
+                copyOf(createdAt), copyOf(updatedAt),
+                items == null ? null : items.stream().map(OrderItemResponse::copy).collect(Collectors.toList()));
+    }
+    
+    private static Date copyOf(Date date) {
+        return date == null ? null : new Date(date.getTime());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,30 @@
+package com.rustorder.api.order.event;
+
+import com.rustorder.api.order.dto.OrderResponse;
+import com.rustorder.api.order.model.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 订单变更事件
+ * 由ImprovedOrderService在事务内发布，监听方在事务提交后处理
+ */
+@Getter
+@AllArgsConstructor
+public class OrderChangedEvent {
+
+    public enum Type {
+        CREATED,        // 新订单
+        UPDATED,        // 订单内容被修改
+        STATUS_CHANGED, // 订单状态变化
+        DELETED         // 订单被删除
+    }
+
+    private final Type type;
+
+    private final OrderResponse order; // 变更后的订单快照（删除时为删除前的快照）
+
+    private final OrderStatus previousStatus; // 变更前的状态，新订单为null
+
+    private final String previousUserId; // 变更前的用户ID，仅修改订单时填写
+}
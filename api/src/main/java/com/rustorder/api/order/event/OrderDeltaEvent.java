@@ -0,0 +1,18 @@
+package com.rustorder.api.order.event;
+
+import com.rustorder.api.order.dto.OrderDelta;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 订单队列增量事件
+ * 由ActiveOrderQueueImpl在更新读模型时按序号顺序发布（此时事务已提交），交给OrderNotificationDispatcher推送
+ */
+@Getter
+@AllArgsConstructor
+public class OrderDeltaEvent {
+
+    private final long epoch;
+
+    private final OrderDelta delta;
+}
@@ -0,0 +1,46 @@
+package com.rustorder.api.order.event;
+
+import com.rustorder.api.order.model.Order;
+import com.rustorder.api.order.model.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 旧版订单（t_order）的WebSocket通知事件
+ * 由OrderServiceImpl、OrderQueueServiceImpl在事务内发布，事务提交后交给OrderNotificationDispatcher异步发送，
+ * 回滚的修改不会通知客户端
+ */
+@Getter
+@AllArgsConstructor
+public class OrderNotificationEvent {
+
+    public enum Type {
+        NEW_ORDER,     // 单个新订单
+        NEW_ORDERS,    // 购物车结算产生的一批新订单
+        STATUS_CHANGE  // 订单状态变化
+    }
+
+    private final Type type;
+
+    private final String pickupCode;
+
+    private final List<Order> orders; // 状态变化时只有一个订单
+
+    private final OrderStatus oldStatus; // 仅状态变化时填写
+
+    private final OrderStatus newStatus; // 仅状态变化时填写
+
+    public static OrderNotificationEvent newOrder(Order order) {
+        return new OrderNotificationEvent(Type.NEW_ORDER, order.getPickupCode(), List.of(order), null, null);
+    }
+
+    public static OrderNotificationEvent newOrders(String pickupCode, List<Order> orders) {
+        return new OrderNotificationEvent(Type.NEW_ORDERS, pickupCode, List.copyOf(orders), null, null);
+    }
+
+    public static OrderNotificationEvent statusChange(Order order, OrderStatus oldStatus, OrderStatus newStatus) {
+        return new OrderNotificationEvent(Type.STATUS_CHANGE, order.getPickupCode(), List.of(order), oldStatus, newStatus);
+    }
+}
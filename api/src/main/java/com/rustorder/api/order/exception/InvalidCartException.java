@@ -0,0 +1,13 @@
+package com.rustorder.api.order.exception;
+
+/**
+ * 购物车修改不合法（数量为空或为负数等），返回400
+ */
+public class InvalidCartException extends RuntimeException {
+    
+    private static final long serialVersionUID = 1L;
+    
+    public InvalidCartException(String message) {
+        super(message);
+    }
+}
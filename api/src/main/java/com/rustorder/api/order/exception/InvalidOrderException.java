@@ -0,0 +1,13 @@
+package com.rustorder.api.order.exception;
+
+/**
+ * 订单内容不合法（菜品不存在或已下架、数量错误等），返回400
+ */
+public class InvalidOrderException extends RuntimeException {
+    
+    private static final long serialVersionUID = 1L;
+    
+    public InvalidOrderException(String message) {
+        super(message);
+    }
+}
@@ -1,83 +1,162 @@
 package com.rustorder.api.order.model;
 
-import lombok.AllArgsConstructor;
-import lombok.Data;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
 
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
-@Data
+/**
+ * 购物车
+ * 商品按(名称, 类型)索引并保持加入顺序，总价与总数量在每次修改时增量维护，增删改查均为O(1)
+ * JSON结构不变：items仍为数组，totalPrice、totalQuantity只输出不读取
+ */
 @NoArgsConstructor
-@AllArgsConstructor
+@JsonIgnoreProperties(value = {"totalPrice", "totalQuantity"}, allowGetters = true)
 public class Cart {
-    
+
+    @Getter
+    @Setter
     private String userId;
-    
-    private List<CartItem> items = new ArrayList<>();
-    
+
+    private final Map<ItemKey, CartItem> items = new LinkedHashMap<>();
+
+    // 总价以0.01元为单位累加，反复增删不会产生浮点误差
+    private long totalPriceCents;
+
+    private int totalQuantity;
+
+    @Getter
+    @Setter
     private Date createdAt;
-    
+
+    @Getter
+    @Setter
     private Date updatedAt;
-    
+
     public Cart(String userId) {
         this.userId = userId;
-        this.items = new ArrayList<>();
         this.createdAt = new Date();
         this.updatedAt = new Date();
     }
-    
+
     /**
-     * 添加商品到购物车
+     * 复制购物车及其中的商品，用于在锁外返回，避免序列化时与修改并发
      */
-    public void addItem(CartItem item) {
-        // 检查是否已存在相同商品
-        for (CartItem existingItem : items) {
-            if (existingItem.getName().equals(item.getName()) && 
-                existingItem.getOrderType().equals(item.getOrderType())) {
-                // 如果存在，增加数量
-                existingItem.setQuantity(existingItem.getQuantity() + item.getQuantity());
-                this.updatedAt = new Date();
-                return;
-            }
+    public Cart copy() {
+        Cart copy = new Cart();
+        copy.userId = userId;
+        copy.createdAt = createdAt;
+        copy.updatedAt = updatedAt;
+        items.values().forEach(item -> copy.putItem(
+                new CartItem(item.getName(), item.getOrderType(), item.getPrice(), item.getQuantity())));
+        return copy;
+    }
+
+    /**
+     * 购物车中的商品（按加入顺序），返回列表副本；修改数量请使用updateItemQuantity，以保证总价正确
+     */
+    public List<CartItem> getItems() {
+        return new ArrayList<>(items.values());
+    }
+
+    /**
+     * 替换全部商品（反序列化使用），相同商品合并数量，不修改更新时间
+     */
+    public void setItems(List<CartItem> newItems) {
+        items.clear();
+        totalPriceCents = 0;
+        totalQuantity = 0;
+        if (newItems != null) {
+            newItems.forEach(this::putItem);
         }
-        // 如果不存在，添加新商品
-        items.add(item);
+    }
+
+    /**
+     * 添加商品到购物车，已存在相同商品时增加数量
+     */
+    public void addItem(CartItem item) {
+        putItem(item);
         this.updatedAt = new Date();
     }
-    
+
     /**
      * 从购物车移除商品
      */
     public void removeItem(String name, String orderType) {
-        items.removeIf(item -> item.getName().equals(name) && item.getOrderType().equals(orderType));
+        CartItem removed = items.remove(new ItemKey(name, orderType));
+        if (removed != null) {
+            adjustTotals(removed.getPrice(), -removed.getQuantity());
+        }
         this.updatedAt = new Date();
     }
-    
+
+    /**
+     * 修改商品数量，小于等于0时移除；商品不存在时不做修改
+     */
+    public void updateItemQuantity(String name, String orderType, int quantity) {
+        CartItem item = items.get(new ItemKey(name, orderType));
+        if (item == null) {
+            return;
+        }
+        if (quantity <= 0) {
+            removeItem(name, orderType);
+            return;
+        }
+        adjustTotals(item.getPrice(), quantity - item.getQuantity());
+        item.setQuantity(quantity);
+        this.updatedAt = new Date();
+    }
+
     /**
      * 清空购物车
      */
     public void clear() {
         items.clear();
+        totalPriceCents = 0;
+        totalQuantity = 0;
         this.updatedAt = new Date();
     }
-    
+
     /**
      * 计算购物车总价
      */
     public Double getTotalPrice() {
-        return items.stream()
-                .mapToDouble(item -> item.getPrice() * item.getQuantity())
-                .sum();
+        return totalPriceCents / 100.0;
     }
-    
+
     /**
      * 获取购物车商品总数量
      */
     public Integer getTotalQuantity() {
-        return items.stream()
-                .mapToInt(CartItem::getQuantity)
-                .sum();
+        return totalQuantity;
+    }
+
+    private void putItem(CartItem item) {
+        if (item.getQuantity() == null) {
+            item.setQuantity(1);
+        }
+        CartItem existingItem = items.putIfAbsent(new ItemKey(item.getName(), item.getOrderType()), item);
+        if (existingItem != null) {
+            existingItem.setQuantity(existingItem.getQuantity() + item.getQuantity());
+            adjustTotals(existingItem.getPrice(), item.getQuantity());
+        } else {
+            adjustTotals(item.getPrice(), item.getQuantity());
+        }
+    }
+
+    private void adjustTotals(Double price, int quantityDelta) {
+        totalQuantity += quantityDelta;
+        if (price != null) {
+            totalPriceCents += Math.round(price * 100) * quantityDelta;
+        }
+    }
+
+    private record ItemKey(String name, String orderType) {
     }
-}
\ No newline at end of file
+}
@@ -9,12 +9,14 @@ import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.util.Date;
 
 @Data
 @Entity
 @Table(name = "t_dish")
+@DynamicUpdate // 只更新修改过的列，避免覆盖评分、销量等批量落库的计数
 @NoArgsConstructor
 @AllArgsConstructor
 public class Dish {
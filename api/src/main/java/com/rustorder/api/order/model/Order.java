@@ -58,4 +58,12 @@ public class Order {
     
     @Column(name = "notes")
     private String notes; // 备注
+    
+    /**
+     * 复制为不受持久化上下文管理的快照，用于缓存和事务提交后的异步处理
+     */
+    public Order copy() {
+        return new Order(id, name, orderType, price, quantity, userId, pickupCode, orderStatus, createdAt,
+                updatedAt, estimatedTime, queueNumber, notes);
+    }
 }
\ No newline at end of file
@@ -15,7 +15,10 @@ import java.util.List;
  */
 @Data
 @Entity
-@Table(name = "t_order_new")
+@Table(name = "t_order_new", indexes = {
+    @Index(name = "idx_order_new_pickup_code", columnList = "pickup_code"),
+    @Index(name = "idx_order_new_created_at", columnList = "created_at, id")
+})
 @NoArgsConstructor
 @AllArgsConstructor
 public class OrderNew {
@@ -27,7 +30,8 @@ public class OrderNew {
     @Column(name = "user_id", nullable = false)
     private String userId;
     
-    @Column(name = "pickup_code", unique = true, nullable = false, length = 6)
+    // 取餐码仅在活跃订单之间唯一，订单完成或取消后回收复用
+    @Column(name = "pickup_code", nullable = false, length = 6)
     private String pickupCode;
     
     @Enumerated(EnumType.STRING)
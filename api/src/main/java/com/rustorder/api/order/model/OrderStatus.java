@@ -1,5 +1,7 @@
 package com.rustorder.api.order.model;
 
+import java.util.List;
+
 public enum OrderStatus {
     PENDING("待处理", "订单已提交，等待后台处理"),
     CONFIRMED("已确认", "订单已确认，准备制作"),
@@ -24,6 +26,27 @@ public enum OrderStatus {
         return description;
     }
     
+    /**
+     * 检查是否为终态（已完成或已取消）
+     */
+    public boolean isTerminal() {
+        return this == COMPLETED || this == CANCELLED;
+    }
+    
+    /**
+     * 检查是否仍在后厨排队（待处理、已确认、制作中）
+     */
+    public boolean isInQueue() {
+        return this == PENDING || this == CONFIRMED || this == PREPARING;
+    }
+    
+    /**
+     * 获取所有非终态（仍占用取餐码）的状态
+     */
+    public static List<OrderStatus> activeStatuses() {
+        return List.of(PENDING, CONFIRMED, PREPARING, READY);
+    }
+    
     /**
      * 根据显示名称获取枚举值
      */
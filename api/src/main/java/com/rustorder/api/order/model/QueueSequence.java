@@ -0,0 +1,35 @@
+package com.rustorder.api.order.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.Date;
+
+/**
+ * 队列号序列实体类
+ * 记录每个营业日已分配的最大队列号（高水位），用于重启后继续发号
+ */
+@Data
+@Entity
+@Table(name = "t_queue_sequence")
+@NoArgsConstructor
+@AllArgsConstructor
+public class QueueSequence {
+
+    @Id
+    @Column(name = "sequence_name", length = 64)
+    private String sequenceName;
+
+    @Column(name = "business_date", nullable = false)
+    private LocalDate businessDate; // 高水位所属的营业日
+
+    @Column(name = "high_water_mark", nullable = false)
+    private Integer highWaterMark; // 该营业日已分配的最大队列号
+
+    @Column(name = "updated_at")
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date updatedAt;
+}
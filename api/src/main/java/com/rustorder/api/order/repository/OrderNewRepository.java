@@ -2,19 +2,27 @@ package com.rustorder.api.order.repository;
 
 import com.rustorder.api.order.model.OrderNew;
 import com.rustorder.api.order.model.OrderStatus;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface OrderNewRepository extends JpaRepository<OrderNew, Long> {
     
-    // 根据取餐码查询订单
-    Optional<OrderNew> findByPickupCode(String pickupCode);
+    // 根据取餐码查询订单（取餐码会回收复用，取最近的一个）
+    Optional<OrderNew> findFirstByPickupCodeOrderByIdDesc(String pickupCode);
     
     // 根据用户ID查询订单历史
     List<OrderNew> findByUserIdOrderByCreatedAtDesc(String userId);
@@ -31,9 +39,9 @@ public interface OrderNewRepository extends JpaRepository<OrderNew, Long> {
     // 统计指定状态的订单数量
     int countByOrderStatus(OrderStatus status);
     
-    // 获取下一个队列号
-    @Query("SELECT COALESCE(MAX(o.queueNumber), 0) + 1 FROM OrderNew o WHERE o.orderStatus IN :statuses")
-    Integer getNextQueueNumber(@Param("statuses") List<OrderStatus> statuses);
+    // 获取指定时间之后创建的订单中最大的队列号（仅在启动时用于恢复队列号）
+    @Query("SELECT COALESCE(MAX(o.queueNumber), 0) FROM OrderNew o WHERE o.createdAt >= :since")
+    Integer findMaxQueueNumberSince(@Param("since") Date since);
     
     // 获取队列中的订单（待处理、已确认、制作中、待取餐）
     @Query("SELECT o FROM OrderNew o WHERE o.orderStatus IN ('PENDING', 'CONFIRMED', 'PREPARING', 'READY') ORDER BY o.queueNumber ASC")
@@ -43,6 +51,63 @@ public interface OrderNewRepository extends JpaRepository<OrderNew, Long> {
     @Query("SELECT o FROM OrderNew o WHERE o.orderStatus = 'PENDING' ORDER BY o.queueNumber ASC LIMIT 1")
     Optional<OrderNew> findNextPendingOrder();
     
-    // 检查取餐码是否已存在
-    boolean existsByPickupCode(String pickupCode);
+    // 获取指定状态订单占用的取餐码
+    @Query("SELECT o.pickupCode FROM OrderNew o WHERE o.orderStatus IN :statuses")
+    List<String> findPickupCodesByOrderStatusIn(@Param("statuses") List<OrderStatus> statuses);
+    
+    // 以下查询通过实体图一次性取回订单项，避免逐个订单懒加载（N+1）
+    
+    // 根据用户ID查询订单历史及订单项
+    @EntityGraph(attributePaths = "items")
+    List<OrderNew> findWithItemsByUserIdOrderByCreatedAtDesc(String userId);
+    
+    // 根据订单状态查询订单及订单项，按队列号排序
+    @EntityGraph(attributePaths = "items")
+    List<OrderNew> findWithItemsByOrderStatusOrderByQueueNumberAsc(OrderStatus status);
+    
+    // 获取指定状态的订单及订单项
+    @EntityGraph(attributePaths = "items")
+    List<OrderNew> findWithItemsByOrderStatusIn(List<OrderStatus> statuses);
+    
+    // 以下查询按(创建时间, ID)倒序做键集分页，走idx_order_new_created_at索引，翻页代价与页码无关
+    
+    // 获取第一页的订单ID
+    @Query("SELECT o.id FROM OrderNew o ORDER BY o.createdAt DESC, o.id DESC")
+    List<Long> findPageIds(Limit limit);
+    
+    // 获取游标之后一页的订单ID
+    // 创建时间为空的订单排在最后（MySQL倒序时NULL在末尾）
+    @Query("SELECT o.id FROM OrderNew o WHERE o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id) " +
+           "OR o.createdAt IS NULL ORDER BY o.createdAt DESC, o.id DESC")
+    List<Long> findPageIdsAfter(@Param("createdAt") Date createdAt, @Param("id") Long id, Limit limit);
+    
+    // 游标已进入创建时间为空的订单时，获取之后一页的订单ID
+    @Query("SELECT o.id FROM OrderNew o WHERE o.createdAt IS NULL AND o.id < :id ORDER BY o.id DESC")
+    List<Long> findPageIdsWithoutCreatedAtAfter(@Param("id") Long id, Limit limit);
+    
+    // 以下三个查询与上面相同，只返回指定状态的订单（如历史订单页只取已完成、已取消、待取餐）
+    
+    @Query("SELECT o.id FROM OrderNew o WHERE o.orderStatus IN :statuses ORDER BY o.createdAt DESC, o.id DESC")
+    List<Long> findPageIdsByOrderStatusIn(@Param("statuses") Collection<OrderStatus> statuses, Limit limit);
+    
+    @Query("SELECT o.id FROM OrderNew o WHERE o.orderStatus IN :statuses AND (o.createdAt < :createdAt " +
+           "OR (o.createdAt = :createdAt AND o.id < :id) OR o.createdAt IS NULL) ORDER BY o.createdAt DESC, o.id DESC")
+    List<Long> findPageIdsByOrderStatusInAfter(@Param("statuses") Collection<OrderStatus> statuses,
+                                               @Param("createdAt") Date createdAt, @Param("id") Long id, Limit limit);
+    
+    @Query("SELECT o.id FROM OrderNew o WHERE o.orderStatus IN :statuses AND o.createdAt IS NULL AND o.id < :id " +
+           "ORDER BY o.id DESC")
+    List<Long> findPageIdsWithoutCreatedAtByOrderStatusInAfter(@Param("statuses") Collection<OrderStatus> statuses,
+                                                               @Param("id") Long id, Limit limit);
+    
+    // 根据ID批量获取订单及订单项（先分页取ID再取集合，避免集合抓取时在内存中分页）
+    @EntityGraph(attributePaths = "items")
+    @Query("SELECT o FROM OrderNew o WHERE o.id IN :ids ORDER BY o.createdAt DESC, o.id DESC")
+    List<OrderNew> findWithItemsByIdIn(@Param("ids") Collection<Long> ids);
+    
+    // 流式读取全部订单及订单项，每行为[订单, 订单项]，同一订单的行相邻
+    // MySQL驱动在fetchSize为Integer.MIN_VALUE时逐行读取结果集，不在内存中缓存整个结果
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query("SELECT o, i FROM OrderNew o LEFT JOIN o.items i ORDER BY o.createdAt DESC, o.id DESC, i.id ASC")
+    Stream<Object[]> streamAllWithItems();
 }
\ No newline at end of file
@@ -3,6 +3,8 @@ package com.rustorder.api.order.repository;
 import com.rustorder.api.order.model.Order;
 import com.rustorder.api.order.model.OrderStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -18,7 +20,16 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     
     int countByOrderStatus(OrderStatus status);
     
+    // 每行为[状态, 订单数]，用于队列统计对账
+    @Query("SELECT o.orderStatus, COUNT(o) FROM Order o WHERE o.orderStatus IN :statuses GROUP BY o.orderStatus")
+    List<Object[]> countGroupByOrderStatusIn(@Param("statuses") List<OrderStatus> statuses);
+    
     List<Order> findByPickupCode(String pickupCode);
     
+    int countByPickupCodeAndOrderStatusIn(String pickupCode, List<OrderStatus> statuses);
+    
+    @Query("SELECT DISTINCT o.pickupCode FROM Order o WHERE o.orderStatus IN :statuses")
+    List<String> findPickupCodesByOrderStatusIn(@Param("statuses") List<OrderStatus> statuses);
+    
     List<Order> findByUserIdOrderByCreatedAtDesc(String userId);
 }
\ No newline at end of file
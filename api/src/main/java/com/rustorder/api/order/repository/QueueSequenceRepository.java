@@ -0,0 +1,9 @@
+package com.rustorder.api.order.repository;
+
+import com.rustorder.api.order.model.QueueSequence;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface QueueSequenceRepository extends JpaRepository<QueueSequence, String> {
+}
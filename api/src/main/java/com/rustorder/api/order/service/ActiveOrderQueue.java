@@ -0,0 +1,52 @@
+package com.rustorder.api.order.service;
+
+import com.rustorder.api.order.dto.OrderDeltaResponse;
+import com.rustorder.api.order.dto.OrderResponse;
+import com.rustorder.api.order.dto.QueuePositionResponse;
+import com.rustorder.api.order.model.OrderStatus;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 活跃订单内存读模型（后厨队列视图）
+ * 在订单创建及每次状态变化提交后更新，读取不访问数据库
+ */
+public interface ActiveOrderQueue {
+    
+    /**
+     * 获取指定状态的活跃订单（按营业日、队列号排序，前一营业日遗留的订单在前）
+     * @param statuses 订单状态
+     * @return 订单列表
+     */
+    List<OrderResponse> getOrders(Collection<OrderStatus> statuses);
+    
+    /**
+     * 根据订单ID获取活跃订单
+     * @param orderId 订单ID
+     * @return 订单，不在队列中时为空
+     */
+    Optional<OrderResponse> getOrder(Long orderId);
+    
+    /**
+     * 获取用户最靠前的排队订单及其前面的订单数（含前一营业日遗留的订单），O(log n)
+     * @param userId 用户ID
+     * @return 队列位置
+     */
+    QueuePositionResponse getUserQueuePosition(String userId);
+    
+    /**
+     * 获取指定序号之后的队列增量
+     * epoch与当前不一致、未传since或since之后的增量已不在缓冲区中时，返回全部活跃订单的快照
+     * @param epoch 客户端上次收到的epoch
+     * @param since 客户端已应用的最后一个增量序号
+     * @return 增量或快照
+     */
+    OrderDeltaResponse getDeltasSince(Long epoch, Long since);
+    
+    /**
+     * 从数据库重建读模型
+     */
+    void rebuild();
+}
@@ -15,8 +15,9 @@ public interface CartService {
     /**
      * 添加商品到购物车
      * @param userId 用户ID
-     * @param item 商品项
+     * @param item 商品项，数量为空时按1件处理
      * @return 更新后的购物车
+     * @throws com.rustorder.api.order.exception.InvalidCartException 数量小于等于0
      */
     Cart addItemToCart(String userId, CartItem item);
     
@@ -34,8 +35,9 @@ public interface CartService {
      * @param userId 用户ID
      * @param name 商品名称
      * @param orderType 商品类型
-     * @param quantity 新数量
+     * @param quantity 新数量，为0时移除商品
      * @return 更新后的购物车
+     * @throws com.rustorder.api.order.exception.InvalidCartException 数量为空或小于0
      */
     Cart updateItemQuantity(String userId, String name, String orderType, Integer quantity);
     
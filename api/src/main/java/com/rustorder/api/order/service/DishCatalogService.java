@@ -0,0 +1,120 @@
+package com.rustorder.api.order.service;
+
+import com.rustorder.api.order.model.Dish;
+import com.rustorder.api.order.support.DishCatalogSnapshot;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 菜品目录服务
+ * 读取全部由当前版本的内存快照提供；写入落库并在事务提交后生成新版本快照原子替换
+ */
+public interface DishCatalogService {
+    
+    /**
+     * 获取当前版本的菜品目录快照
+     * @return 不可变快照
+     */
+    DishCatalogSnapshot snapshot();
+    
+    /**
+     * 根据ID获取菜品，评分和销量包含未落库的部分
+     * 快照中的列表视图只在落库后更新评分和销量，单个菜品和排名以此为准
+     * @param id 菜品ID
+     * @return 菜品，不存在时为空
+     */
+    Optional<Dish> getDish(Long id);
+    
+    /**
+     * 排名与实时评分的版本号，排名索引或目录快照变化后递增
+     * 热门、高评分和单个菜品的渲染结果按此版本缓存
+     */
+    long rankVersion();
+    
+    /**
+     * 获取热门菜品（按销量、评分、创建时间倒序），由增量维护的排名索引提供，O(limit)
+     * 排名中的评分和销量包含未落库的部分
+     * @param limit 数量
+     * @return 菜品列表
+     */
+    List<Dish> getPopularDishes(int limit);
+    
+    /**
+     * 获取评分不低于minRating的菜品（按评分、销量倒序），由评分索引做有界范围扫描
+     * 评分后由refreshRanks按当前平均分批量调整位置，不等待落库
+     * @param minRating 最低评分
+     * @param limit 数量
+     * @return 菜品列表
+     */
+    List<Dish> getTopRatedDishes(double minRating, int limit);
+    
+    /**
+     * 从数据库重新加载菜品目录
+     */
+    void reload();
+    
+    /**
+     * 创建菜品，未填写的统计字段使用默认值
+     * @param dish 菜品
+     * @return 保存后的菜品
+     */
+    Dish createDish(Dish dish);
+    
+    /**
+     * 批量创建菜品
+     * @param dishes 菜品列表
+     * @return 保存后的菜品
+     */
+    List<Dish> createDishes(List<Dish> dishes);
+    
+    /**
+     * 更新菜品（保留创建时间）
+     * @param id 菜品ID
+     * @param dish 菜品信息
+     * @return 更新后的菜品，菜品不存在时为空
+     */
+    Optional<Dish> updateDish(Long id, Dish dish);
+    
+    /**
+     * 删除菜品
+     * @param id 菜品ID
+     * @return 菜品不存在时返回false
+     */
+    boolean deleteDish(Long id);
+    
+    /**
+     * 设置菜品可用状态
+     * @param id 菜品ID
+     * @param isAvailable 是否可用
+     * @return 更新后的菜品，菜品不存在时为空
+     */
+    Optional<Dish> setDishAvailability(Long id, Boolean isAvailable);
+    
+    /**
+     * 为菜品评分：只记录到内存累加器，定期批量落库
+     * @param id 菜品ID
+     * @param rating 评分（0-5）
+     * @return 包含本次评分的当前平均分的菜品，菜品不存在时为空
+     */
+    Optional<Dish> rateDish(Long id, double rating);
+    
+    /**
+     * 按当前平均分和销量批量调整有新评分或销量的菜品在排名中的位置（默认每100毫秒）
+     * 排名不在评分和销量请求中调整，避免请求线程等待目录的写锁
+     */
+    void refreshRanks();
+    
+    /**
+     * 将累积的评分和销量批量写入数据库，每个有变化的菜品每类计数一条UPDATE
+     */
+    void flushCounters();
+    
+    /**
+     * 增加菜品销量：只记录到内存计数器，定期批量落库（订单完成时会自动累加）
+     * @param id 菜品ID
+     * @param quantity 数量
+     * @return 包含未落库销量的菜品，菜品不存在时为空
+     */
+    Optional<Dish> incrementSales(Long id, int quantity);
+}
@@ -1,71 +1,107 @@
 package com.rustorder.api.order.service;
 
 import com.rustorder.api.order.dto.*;
+import com.rustorder.api.order.event.OrderChangedEvent;
+import com.rustorder.api.order.exception.InvalidOrderException;
 import com.rustorder.api.order.model.*;
 import com.rustorder.api.order.repository.*;
+import com.rustorder.api.order.support.DishCatalogSnapshot;
+import com.rustorder.api.order.support.OrderCursor;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @Transactional
 public class ImprovedOrderService {
     
+    // 后厨队列中显示的状态（待取餐的订单不再排队）
+    private static final List<OrderStatus> QUEUE_STATUSES =
+        List.of(OrderStatus.PENDING, OrderStatus.CONFIRMED, OrderStatus.PREPARING);
+    
+    // 流式导出时每输出多少个订单清空一次持久化上下文，避免实体在一级缓存中堆积
+    private static final int STREAM_CLEAR_INTERVAL = 200;
+    
+    // 菜品未设置制作时间时使用的默认值（分钟）
+    private static final int DEFAULT_ESTIMATED_TIME = 10;
+    
     private final OrderNewRepository orderRepository;
     private final OrderItemRepository orderItemRepository;
+    private final QueueNumberAllocator queueNumberAllocator;
+    private final PickupCodePool pickupCodePool;
+    private final ActiveOrderQueue activeOrderQueue;
+    private final DishCatalogService dishCatalogService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CacheManager cacheManager;
+    private final int defaultPageSize;
+    private final int maxPageSize;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
     
     @Autowired
-    public ImprovedOrderService(OrderNewRepository orderRepository, OrderItemRepository orderItemRepository) {
+    public ImprovedOrderService(OrderNewRepository orderRepository, OrderItemRepository orderItemRepository,
+                                QueueNumberAllocator queueNumberAllocator, PickupCodePool pickupCodePool,
+                                ActiveOrderQueue activeOrderQueue, DishCatalogService dishCatalogService,
+                                ApplicationEventPublisher eventPublisher, CacheManager cacheManager,
+                                @Value("${rustorder.orders.page-size:20}") int defaultPageSize,
+                                @Value("${rustorder.orders.max-page-size:100}") int maxPageSize) {
         this.orderRepository = orderRepository;
         this.orderItemRepository = orderItemRepository;
+        this.queueNumberAllocator = queueNumberAllocator;
+        this.pickupCodePool = pickupCodePool;
+        this.activeOrderQueue = activeOrderQueue;
+        this.dishCatalogService = dishCatalogService;
+        this.eventPublisher = eventPublisher;
+        this.cacheManager = cacheManager;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
     }
     
     public OrderResponse createOrder(CreateOrderRequest request) {
+        // 先校验菜品，校验失败时不占用取餐码和队列号
+        List<OrderItem> items = resolveItems(request.getItems());
+        
         OrderNew order = new OrderNew();
         order.setUserId(request.getUserId());
-        order.setPickupCode(generatePickupCode());
+        order.setPickupCode(pickupCodePool.allocate());
         order.setOrderStatus(OrderStatus.PENDING);
-        order.setQueueNumber(generateQueueNumber());
+        order.setQueueNumber(queueNumberAllocator.nextQueueNumber());
         order.setNotes(request.getNotes());
         order.setCreatedAt(new Date());
         order.setUpdatedAt(new Date());
         
-        List<OrderItem> items = new ArrayList<>();
-        double totalPrice = 0.0;
-        int maxEstimatedTime = 0;
-        
-        for (OrderItemRequest itemRequest : request.getItems()) {
-            OrderItem item = new OrderItem();
-            item.setDishName(itemRequest.getDishName());
-            item.setDishType(itemRequest.getDishType());
-            item.setUnitPrice(itemRequest.getUnitPrice());
-            item.setQuantity(itemRequest.getQuantity());
-            item.setSubtotal(itemRequest.getUnitPrice() * itemRequest.getQuantity());
-            item.setEstimatedTime(itemRequest.getEstimatedTime());
-            item.setItemNotes(itemRequest.getItemNotes());
-            item.setOrder(order);
-            items.add(item);
-        
-            totalPrice += item.getSubtotal();
-            maxEstimatedTime = Math.max(maxEstimatedTime, itemRequest.getEstimatedTime());
-        }
-        
-        order.setItems(items);
-        order.setTotalPrice(totalPrice);
-        order.setTotalEstimatedTime(maxEstimatedTime);
+        items.forEach(order::addItem);
+        order.calculateTotalPrice();
+        order.calculateTotalEstimatedTime();
         
         order = orderRepository.save(order);
         
-        return convertToOrderResponse(order);
+        OrderResponse response = convertToOrderResponse(order);
+        eventPublisher.publishEvent(new OrderChangedEvent(OrderChangedEvent.Type.CREATED, response, null, null));
+        return response;
     }
     
     public OrderResponse updateOrderStatus(Long orderId, OrderStatus newStatus, String notes) {
         OrderNew order = orderRepository.findById(orderId)
             .orElseThrow(() -> new RuntimeException("订单不存在"));
         
+        OrderStatus oldStatus = order.getOrderStatus();
         order.setOrderStatus(newStatus);
         if (notes != null) {
             order.setNotes(notes);
@@ -74,81 +110,173 @@ public class ImprovedOrderService {
         
         order = orderRepository.save(order);
         
-        return convertToOrderResponse(order);
+        // 订单进入终态后回收取餐码
+        if (newStatus.isTerminal() && !oldStatus.isTerminal()) {
+            pickupCodePool.release(order.getPickupCode());
+        }
+        
+        OrderResponse response = convertToOrderResponse(order);
+        eventPublisher.publishEvent(new OrderChangedEvent(OrderChangedEvent.Type.STATUS_CHANGED, response, oldStatus, null));
+        return response;
     }
     
     public OrderResponse getOrderByPickupCode(String pickupCode) {
-        OrderNew order = orderRepository.findByPickupCode(pickupCode)
-            .orElseThrow(() -> new RuntimeException("订单不存在"));
-        
-        return convertToOrderResponse(order);
+        return cached(OrderCacheEvictor.ORDER_RESPONSE_BY_PICKUP_CODE, pickupCode, () -> {
+            OrderNew order = orderRepository.findFirstByPickupCodeOrderByIdDesc(pickupCode)
+                .orElseThrow(() -> new RuntimeException("订单不存在"));
+            return convertToOrderResponse(order);
+        }, OrderResponse::copy);
     }
     
+    /**
+     * 后厨队列直接由内存读模型提供，不访问数据库
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public List<OrderResponse> getOrderQueue() {
-        List<OrderNew> orders = orderRepository.findByOrderStatusInOrderByQueueNumberAsc(
-            Arrays.asList(OrderStatus.PENDING, OrderStatus.CONFIRMED, OrderStatus.PREPARING)
-        );
-        
-        return orders.stream()
-            .map(this::convertToOrderResponse)
-            .collect(Collectors.toList());
+        return activeOrderQueue.getOrders(QUEUE_STATUSES);
     }
     
+    /**
+     * 队列位置由内存排名索引计算，不访问数据库
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public QueuePositionResponse getUserQueuePosition(String userId) {
-        List<OrderNew> userActiveOrders = orderRepository.findByUserIdAndOrderStatusIn(
-            userId, 
-            Arrays.asList(OrderStatus.PENDING, OrderStatus.CONFIRMED, OrderStatus.PREPARING)
-        );
-        
-        if (userActiveOrders.isEmpty()) {
-            return new QueuePositionResponse(false, 0, 0, null);
+        return activeOrderQueue.getUserQueuePosition(userId);
+    }
+    
+    /**
+     * 队列增量由内存读模型提供，不访问数据库
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public OrderDeltaResponse getOrderQueueDeltas(Long epoch, Long since) {
+        return activeOrderQueue.getDeltasSince(epoch, since);
+    }
+    
+    /**
+     * 按(创建时间, ID)倒序键集分页查询订单
+     * @param cursor 上一页返回的游标，为空时查询第一页
+     * @param size   每页数量，为空时使用默认值，超过上限时截断
+     */
+    @Transactional(readOnly = true)
+    public OrderPageResponse getOrderPage(String cursor, Integer size) {
+        return getOrderPage(cursor, size, null);
+    }
+    
+    /**
+     * 按(创建时间, ID)倒序键集分页查询指定状态的订单
+     * @param statuses 订单状态，为空时不按状态过滤
+     */
+    @Transactional(readOnly = true)
+    public OrderPageResponse getOrderPage(String cursor, Integer size, Collection<OrderStatus> statuses) {
+        int pageSize = size == null ? defaultPageSize : Math.max(1, Math.min(size, maxPageSize));
+        // 多取一条用于判断是否还有下一页
+        Limit limit = Limit.of(pageSize + 1);
+        boolean filtered = statuses != null && !statuses.isEmpty();
+        List<Long> ids;
+        if (cursor == null || cursor.isBlank()) {
+            ids = filtered
+                ? orderRepository.findPageIdsByOrderStatusIn(statuses, limit)
+                : orderRepository.findPageIds(limit);
+        } else {
+            OrderCursor after = OrderCursor.decode(cursor);
+            if (after.createdAt() == null) {
+                ids = filtered
+                    ? orderRepository.findPageIdsWithoutCreatedAtByOrderStatusInAfter(statuses, after.id(), limit)
+                    : orderRepository.findPageIdsWithoutCreatedAtAfter(after.id(), limit);
+            } else {
+                ids = filtered
+                    ? orderRepository.findPageIdsByOrderStatusInAfter(statuses, after.createdAt(), after.id(), limit)
+                    : orderRepository.findPageIdsAfter(after.createdAt(), after.id(), limit);
+            }
         }
         
-        OrderNew userOrder = userActiveOrders.get(0);
-        
-        List<OrderNew> queueOrders = orderRepository.findByOrderStatusInOrderByQueueNumberAsc(
-            Arrays.asList(OrderStatus.PENDING, OrderStatus.CONFIRMED, OrderStatus.PREPARING)
-        );
-        
-        int position = 0;
-        for (OrderNew order : queueOrders) {
-            if (order.getQueueNumber() < userOrder.getQueueNumber()) {
-                position++;
-            } else if (order.getId().equals(userOrder.getId())) {
-                break;
-            }
+        boolean hasMore = ids.size() > pageSize;
+        if (hasMore) {
+            ids = ids.subList(0, pageSize);
+        }
+        if (ids.isEmpty()) {
+            return new OrderPageResponse(List.of(), null);
         }
         
-        return new QueuePositionResponse(
-            true, 
-            position, 
-            userOrder.getQueueNumber(), 
-            userOrder.getOrderStatus().getDisplayName()
-        );
-    }
-    
-    public List<OrderResponse> getAllOrders() {
-        List<OrderNew> orders = orderRepository.findAll();
-        return orders.stream()
+        List<OrderNew> orders = orderRepository.findWithItemsByIdIn(ids);
+        OrderNew last = orders.get(orders.size() - 1);
+        String nextCursor = hasMore ? new OrderCursor(last.getCreatedAt(), last.getId()).encode() : null;
+        List<OrderResponse> responses = orders.stream()
             .map(this::convertToOrderResponse)
             .collect(Collectors.toList());
+        return new OrderPageResponse(responses, nextCursor);
+    }
+    
+    /**
+     * 流式读取全部订单（按创建时间倒序），每组装好一个订单立即交给回调
+     * 结果集逐行读取，内存占用与订单总数无关
+     */
+    @Transactional(readOnly = true)
+    public void streamAllOrders(Consumer<OrderResponse> consumer) {
+        try (Stream<Object[]> rows = orderRepository.streamAllWithItems()) {
+            OrderNew current = null;
+            List<OrderItem> items = new ArrayList<>();
+            int emitted = 0;
+            Iterator<Object[]> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                Object[] row = iterator.next();
+                OrderNew order = (OrderNew) row[0];
+                // 同一订单的行相邻，订单ID变化时输出上一个订单
+                if (current != null && !current.getId().equals(order.getId())) {
+                    consumer.accept(OrderResponseConverter.toOrderResponse(current, items));
+                    items = new ArrayList<>();
+                    if (++emitted % STREAM_CLEAR_INTERVAL == 0) {
+                        entityManager.clear();
+                    }
+                }
+                current = order;
+                if (row[1] != null) {
+                    items.add((OrderItem) row[1]);
+                }
+            }
+            if (current != null) {
+                consumer.accept(OrderResponseConverter.toOrderResponse(current, items));
+            }
+        }
     }
     
     public OrderResponse getOrderById(Long id) {
-        OrderNew order = orderRepository.findById(id)
-            .orElseThrow(() -> new RuntimeException("订单不存在"));
-        return convertToOrderResponse(order);
+        return cached(OrderCacheEvictor.ORDER_RESPONSE_BY_ID, id, () -> {
+            OrderNew order = orderRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("订单不存在"));
+            return convertToOrderResponse(order);
+        }, OrderResponse::copy);
     }
     
     public List<OrderResponse> getUserOrders(String userId) {
-        List<OrderNew> orders = orderRepository.findByUserIdOrderByCreatedAtDesc(userId);
-        return orders.stream()
-            .map(this::convertToOrderResponse)
-            .collect(Collectors.toList());
+        return cached(OrderCacheEvictor.ORDER_RESPONSES_BY_USER, userId, () -> {
+            List<OrderNew> orders = orderRepository.findWithItemsByUserIdOrderByCreatedAtDesc(userId);
+            return orders.stream()
+                .map(this::convertToOrderResponse)
+                .collect(Collectors.toList());
+        }, responses -> responses.stream().map(OrderResponse::copy).collect(Collectors.toList()));
+    }
+    
+    /**
+     * 缓存中保存的响应对象不会返回给调用方，每次返回一份副本，调用方的修改不会影响缓存和其他调用方
+     * 缓存的失效见OrderCacheEvictor
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T cached(String cacheName, Object key, Supplier<T> loader, UnaryOperator<T> copier) {
+        Cache cache = cacheManager.getCache(cacheName);
+        Cache.ValueWrapper wrapper = cache != null ? cache.get(key) : null;
+        T cached = wrapper != null ? (T) wrapper.get() : null;
+        if (cached == null) {
+            cached = loader.get();
+            if (cache != null) {
+                cache.put(key, cached);
+            }
+        }
+        return copier.apply(cached);
     }
     
     public List<OrderResponse> getOrdersByStatus(OrderStatus status) {
-        List<OrderNew> orders = orderRepository.findByOrderStatusOrderByQueueNumberAsc(status);
+        List<OrderNew> orders = orderRepository.findWithItemsByOrderStatusOrderByQueueNumberAsc(status);
         // 按更新时间倒序排序（最新的在前）
         orders.sort((a, b) -> {
             Date dateA = a.getUpdatedAt() != null ? a.getUpdatedAt() : a.getCreatedAt();
@@ -169,39 +297,25 @@ public class ImprovedOrderService {
             throw new RuntimeException("只能修改待处理状态的订单");
         }
         
+        List<OrderItem> items = resolveItems(request.getItems());
+        
         // 更新订单信息
+        String previousUserId = order.getUserId();
         order.setUserId(request.getUserId());
         order.setNotes(request.getNotes());
         
-        // 删除原有订单项
-        orderItemRepository.deleteByOrderId(id);
-        
-        // 创建订单项并计算总价
-        double totalPrice = 0.0;
-        int maxEstimatedTime = 0;
-        
-        for (OrderItemRequest itemRequest : request.getItems()) {
-            OrderItem item = new OrderItem();
-            item.setOrder(order);
-            item.setDishName(itemRequest.getDishName());
-            item.setDishType(itemRequest.getDishType() != null ? itemRequest.getDishType() : "其他");
-            item.setUnitPrice(itemRequest.getUnitPrice());
-            item.setQuantity(itemRequest.getQuantity());
-            item.setSubtotal(itemRequest.getUnitPrice() * itemRequest.getQuantity());
-            item.setEstimatedTime(itemRequest.getEstimatedTime() != null ? itemRequest.getEstimatedTime() : 10);
-            item.setItemNotes(itemRequest.getItemNotes());
-            orderItemRepository.save(item);
-            
-            totalPrice += item.getSubtotal();
-            maxEstimatedTime = Math.max(maxEstimatedTime, itemRequest.getEstimatedTime() != null ? itemRequest.getEstimatedTime() : 10);
-        }
+        // 删除原有订单项（orphanRemoval保证集合与数据库一致）
+        order.getItems().clear();
         
-        // 更新订单总价和总时间
-        order.setTotalPrice(totalPrice);
-        order.setTotalEstimatedTime(maxEstimatedTime);
+        // 添加新的订单项并计算总价和总时间
+        items.forEach(order::addItem);
+        order.calculateTotalPrice();
+        order.calculateTotalEstimatedTime();
         
         OrderNew savedOrder = orderRepository.save(order);
-        return convertToOrderResponse(savedOrder);
+        OrderResponse response = convertToOrderResponse(savedOrder);
+        eventPublisher.publishEvent(new OrderChangedEvent(OrderChangedEvent.Type.UPDATED, response, OrderStatus.PENDING, previousUserId));
+        return response;
     }
     
     public void deleteOrder(Long id) {
@@ -213,64 +327,49 @@ public class ImprovedOrderService {
             throw new RuntimeException("只能删除待处理或已取消状态的订单");
         }
         
-        // 删除订单项
-        orderItemRepository.deleteByOrderId(id);
+        OrderResponse snapshot = convertToOrderResponse(order);
         
-        // 删除订单
-        orderRepository.deleteById(id);
-    }
-    
-    private OrderResponse convertToOrderResponse(OrderNew order) {
-        OrderResponse response = new OrderResponse();
-        response.setId(order.getId());
-        response.setUserId(order.getUserId());
-        response.setPickupCode(order.getPickupCode());
-        response.setOrderStatus(order.getOrderStatus());
-        response.setQueueNumber(order.getQueueNumber());
-        response.setNotes(order.getNotes());
-        response.setTotalPrice(order.getTotalPrice());
-        response.setTotalEstimatedTime(order.getTotalEstimatedTime());
-        response.setCreatedAt(order.getCreatedAt());
-        response.setUpdatedAt(order.getUpdatedAt());
-        
-        // 转换订单项
-        List<OrderItemResponse> itemResponses = order.getItems().stream()
-            .map(this::convertToOrderItemResponse)
-            .collect(Collectors.toList());
-        response.setItems(itemResponses);
+        // 删除订单（订单项随级联删除）
+        orderRepository.delete(order);
         
-        return response;
-    }
-    
-    private OrderItemResponse convertToOrderItemResponse(OrderItem item) {
-        OrderItemResponse response = new OrderItemResponse();
-        response.setId(item.getId());
-        response.setDishName(item.getDishName());
-        response.setDishType(item.getDishType());
-        response.setUnitPrice(item.getUnitPrice());
-        response.setQuantity(item.getQuantity());
-        response.setSubtotal(item.getSubtotal());
-        response.setEstimatedTime(item.getEstimatedTime());
-        response.setItemNotes(item.getItemNotes());
+        if (order.getOrderStatus() == OrderStatus.PENDING) {
+            pickupCodePool.release(order.getPickupCode());
+        }
         
-        return response;
+        eventPublisher.publishEvent(new OrderChangedEvent(OrderChangedEvent.Type.DELETED, snapshot, snapshot.getOrderStatus(), null));
     }
     
-    private String generatePickupCode() {
-        Random random = new Random();
-        return String.format("%06d", random.nextInt(1000000));
+    /**
+     * 基于同一个目录快照一次性解析全部订单项，不访问数据库
+     * 菜品必须存在且可用，价格、类型和制作时间以服务端菜品为准，忽略客户端传入的值
+     */
+    private List<OrderItem> resolveItems(List<OrderItemRequest> itemRequests) {
+        if (itemRequests == null || itemRequests.isEmpty()) {
+            throw new InvalidOrderException("订单中至少需要一个菜品");
+        }
+        DishCatalogSnapshot catalog = dishCatalogService.snapshot();
+        List<OrderItem> items = new ArrayList<>(itemRequests.size());
+        for (OrderItemRequest itemRequest : itemRequests) {
+            if (itemRequest.getQuantity() == null || itemRequest.getQuantity() <= 0) {
+                throw new InvalidOrderException("商品数量必须大于0");
+            }
+            Dish dish = catalog.getAvailableDishByName(itemRequest.getDishName())
+                .orElseThrow(() -> new InvalidOrderException("菜品 '" + itemRequest.getDishName() + "' 不在菜单中或暂时不可用"));
+            
+            OrderItem item = new OrderItem();
+            item.setDishName(dish.getDishName());
+            item.setDishType(dish.getDishType());
+            item.setUnitPrice(dish.getPrice());
+            item.setQuantity(itemRequest.getQuantity());
+            item.setSubtotal(dish.getPrice() * itemRequest.getQuantity());
+            item.setEstimatedTime(dish.getEstimatedTime() != null ? dish.getEstimatedTime() : DEFAULT_ESTIMATED_TIME);
+            item.setItemNotes(itemRequest.getItemNotes());
+            items.add(item);
+        }
+        return items;
     }
     
-    private Integer generateQueueNumber() {
-        // 查询当前队列中的订单数量（待处理、已确认、制作中的订单）
-        List<OrderStatus> activeStatuses = Arrays.asList(
-            OrderStatus.PENDING, 
-            OrderStatus.CONFIRMED, 
-            OrderStatus.PREPARING
-        );
-        
-        // 使用repository方法获取下一个队列号
-        Integer nextQueueNumber = orderRepository.getNextQueueNumber(activeStatuses);
-        return nextQueueNumber != null ? nextQueueNumber : 1;
+    private OrderResponse convertToOrderResponse(OrderNew order) {
+        return OrderResponseConverter.toOrderResponse(order);
     }
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.rustorder.api.order.service;
 
+import com.rustorder.api.order.model.Dish;
 import com.rustorder.api.order.model.Menu;
 
 import java.util.List;
@@ -51,4 +52,29 @@ public interface MenuService {
      * 设置菜品可用状态
      */
     Menu setMenuItemAvailability(Long id, Boolean isAvailable);
+    
+    /**
+     * 获取所有可用菜品（按排序号排序）
+     */
+    List<Dish> getAvailableDishes();
+    
+    /**
+     * 获取所有菜品（包括已下架的，按排序号排序）
+     */
+    List<Dish> getAllDishes();
+    
+    /**
+     * 根据菜品类型获取可用菜品
+     */
+    List<Dish> getDishesByType(String dishType);
+    
+    /**
+     * 根据ID获取菜品，不存在时返回null
+     */
+    Dish getDishById(Long id);
+    
+    /**
+     * 验证菜品是否存在且可用
+     */
+    boolean isDishAvailable(String dishName);
 }
\ No newline at end of file
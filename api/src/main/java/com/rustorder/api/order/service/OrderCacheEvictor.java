@@ -0,0 +1,68 @@
+package com.rustorder.api.order.service;
+
+import com.rustorder.api.order.dto.OrderResponse;
+import com.rustorder.api.order.event.OrderChangedEvent;
+import com.rustorder.api.order.model.Order;
+import com.rustorder.api.order.support.TransactionCallbacks;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * 订单缓存的定向失效
+ * 订单按ID、取餐码、用户分别缓存，写入后只失效受影响的键，且在事务提交后才失效，
+ * 避免并发读取在提交前把旧数据重新放回缓存
+ */
+@Component
+public class OrderCacheEvictor {
+
+    // 旧版订单（t_order）
+    public static final String ORDER_BY_ID = "order-by-id";
+
+    // 新版订单（t_order_new）
+    public static final String ORDER_RESPONSE_BY_ID = "order-response-by-id";
+    public static final String ORDER_RESPONSE_BY_PICKUP_CODE = "order-response-by-pickup-code";
+    public static final String ORDER_RESPONSES_BY_USER = "order-responses-by-user";
+
+    private final CacheManager cacheManager;
+
+    @Autowired
+    public OrderCacheEvictor(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    /**
+     * 旧版订单写入后调用，事务提交后失效该订单的ID缓存
+     */
+    public void evictOrder(Order order) {
+        Long id = order.getId();
+        TransactionCallbacks.afterCommit(() -> evict(ORDER_BY_ID, id));
+    }
+
+    /**
+     * 新版订单变更事件在事务提交后到达，失效该订单涉及的缓存键
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderChanged(OrderChangedEvent event) {
+        OrderResponse order = event.getOrder();
+        evict(ORDER_RESPONSE_BY_ID, order.getId());
+        // 取餐码回收复用，新订单同样需要失效该取餐码上旧订单的缓存
+        evict(ORDER_RESPONSE_BY_PICKUP_CODE, order.getPickupCode());
+        evict(ORDER_RESPONSES_BY_USER, order.getUserId());
+        if (event.getPreviousUserId() != null && !event.getPreviousUserId().equals(order.getUserId())) {
+            evict(ORDER_RESPONSES_BY_USER, event.getPreviousUserId());
+        }
+    }
+
+    private void evict(String cacheName, Object key) {
+        if (key == null) {
+            return;
+        }
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) {
+            cache.evict(key);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.rustorder.api.order.service;
+
+/**
+ * 订单通知的异步发送器
+ * 在事务提交后接收OrderNotificationEvent，放入有界队列由后台线程按顺序发送，WebSocket推送和统计查询不再占用事务
+ * 活跃订单读模型的OrderDeltaEvent也经同一队列按序号顺序推送
+ */
+public interface OrderNotificationDispatcher {
+
+    /**
+     * 获取发送队列的运行指标
+     */
+    Metrics getMetrics();
+
+    /**
+     * 发送队列指标
+     * @param queueDepth 当前排队的任务数
+     * @param capacity 队列容量，队列满时新的订单通知被丢弃
+     * @param dispatched 已发送的任务数
+     * @param dropped 因队列已满丢弃的订单通知数
+     * @param deferred 因队列已满推迟到下一个间隔的统计更新次数（统计更新不会丢失）
+     * @param merged 合并到待发送统计更新中的统计请求数
+     * @param failed 发送时抛出异常的任务数
+     * @param lastError 最近一次发送失败的原因，没有失败时为null
+     */
+    record Metrics(int queueDepth, int capacity, long dispatched, long dropped, long deferred, long merged,
+                   long failed, String lastError) {
+    }
+}
@@ -1,8 +1,15 @@
 package com.rustorder.api.order.service;
 
+import com.rustorder.api.order.dto.OrderDelta;
 import com.rustorder.api.order.model.Order;
 import com.rustorder.api.order.model.OrderStatus;
 
+import java.util.List;
+
+/**
+ * 订单WebSocket通知
+ * 由OrderNotificationDispatcher在事务提交后的后台线程中调用，订单通知不再附带统计更新，统计由发送器合并后单独发送
+ */
 public interface OrderNotificationService {
     
     /**
@@ -11,6 +18,13 @@ public interface OrderNotificationService {
      */
     void notifyNewOrder(Order order);
     
+    /**
+     * 通知同一取餐码下一批新订单创建（购物车结算），只发送一条汇总消息
+     * @param pickupCode 取餐码
+     * @param orders 新创建的订单
+     */
+    void notifyNewOrders(String pickupCode, List<Order> orders);
+    
     /**
      * 通知订单状态变化
      * @param order 订单对象
@@ -19,6 +33,13 @@ public interface OrderNotificationService {
      */
     void notifyOrderStatusChange(Order order, OrderStatus oldStatus, OrderStatus newStatus);
     
+    /**
+     * 通知订单队列增量
+     * @param epoch 读模型的版本
+     * @param delta 队列增量
+     */
+    void notifyOrderDelta(long epoch, OrderDelta delta);
+    
     /**
      * 通知队列统计信息更新
      */
@@ -14,6 +14,13 @@ public interface OrderQueueService {
      */
     Integer addToQueue(Order order);
     
+    /**
+     * 将一批新订单加入队列，分配队列号后一次批量插入
+     * 生成的ID和队列号直接写回传入的订单
+     * @param orders 尚未保存的订单
+     */
+    void addAllToQueue(List<Order> orders);
+    
     /**
      * 获取队列中的所有订单（按队列号排序）
      * @return 队列中的订单列表
@@ -42,6 +49,18 @@ public interface OrderQueueService {
      */
     Order updateOrderStatus(Long orderId, OrderStatus newStatus, String notes);
     
+    /**
+     * 订单被直接修改后同步队列读模型
+     * @param order 修改后的订单
+     */
+    void onOrderUpdated(Order order);
+    
+    /**
+     * 订单被删除后同步队列读模型
+     * @param orderId 订单ID
+     */
+    void onOrderDeleted(Long orderId);
+    
     /**
      * 获取队列统计信息
      * @return 队列统计
@@ -0,0 +1,61 @@
+package com.rustorder.api.order.service;
+
+import com.rustorder.api.order.dto.OrderItemResponse;
+import com.rustorder.api.order.dto.OrderResponse;
+import com.rustorder.api.order.model.OrderItem;
+import com.rustorder.api.order.model.OrderNew;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 订单实体到响应DTO的转换
+ */
+public final class OrderResponseConverter {
+
+    private OrderResponseConverter() {
+    }
+
+    public static OrderResponse toOrderResponse(OrderNew order) {
+        return toOrderResponse(order, order.getItems());
+    }
+
+    /**
+     * 使用单独加载的订单项进行转换，避免触发懒加载
+     */
+    public static OrderResponse toOrderResponse(OrderNew order, List<OrderItem> items) {
+        OrderResponse response = new OrderResponse();
+        response.setId(order.getId());
+        response.setUserId(order.getUserId());
+        response.setPickupCode(order.getPickupCode());
+        response.setOrderStatus(order.getOrderStatus());
+        response.setQueueNumber(order.getQueueNumber());
+        response.setNotes(order.getNotes());
+        response.setTotalPrice(order.getTotalPrice());
+        response.setTotalEstimatedTime(order.getTotalEstimatedTime());
+        response.setCreatedAt(order.getCreatedAt());
+        response.setUpdatedAt(order.getUpdatedAt());
+        
+        // 转换订单项
+        List<OrderItemResponse> itemResponses = items.stream()
+            .map(OrderResponseConverter::toOrderItemResponse)
+            .collect(Collectors.toList());
+        response.setItems(itemResponses);
+        
+        return response;
+    }
+    
+    public static OrderItemResponse toOrderItemResponse(OrderItem item) {
+        OrderItemResponse response = new OrderItemResponse();
+        response.setId(item.getId());
+        response.setDishName(item.getDishName());
+        response.setDishType(item.getDishType());
+        response.setUnitPrice(item.getUnitPrice());
+        response.setQuantity(item.getQuantity());
+        response.setSubtotal(item.getSubtotal());
+        response.setEstimatedTime(item.getEstimatedTime());
+        response.setItemNotes(item.getItemNotes());
+        
+        return response;
+    }
+}
@@ -0,0 +1,24 @@
+package com.rustorder.api.order.service;
+
+public interface PickupCodePool {
+
+    /**
+     * 分配一个当前未被活跃订单占用的6位取餐码
+     * 若处于事务中，事务回滚时取餐码自动归还
+     * @return 取餐码
+     */
+    String allocate();
+
+    /**
+     * 归还取餐码（订单完成、取消或删除时调用）
+     * 若处于事务中，在事务提交后才真正归还
+     * @param pickupCode 取餐码
+     */
+    void release(String pickupCode);
+
+    /**
+     * 获取当前可分配的取餐码数量
+     * @return 空闲取餐码数量
+     */
+    int availableCount();
+}
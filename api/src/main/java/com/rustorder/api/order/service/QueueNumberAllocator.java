@@ -0,0 +1,32 @@
+package com.rustorder.api.order.service;
+
+import java.time.LocalDate;
+import java.util.Date;
+
+public interface QueueNumberAllocator {
+
+    /**
+     * 分配下一个队列号，每个营业日从1开始
+     * @return 队列号
+     */
+    int nextQueueNumber();
+
+    /**
+     * 获取当前营业日已分配的最大队列号
+     * @return 高水位队列号
+     */
+    int currentHighWaterMark();
+
+    /**
+     * 将高水位持久化到数据库
+     */
+    void persistHighWaterMark();
+
+    /**
+     * 获取某一时刻所属的营业日，早于切换时间的时段属于前一营业日
+     * 队列号只在同一营业日内唯一且递增，跨营业日比较先后需带上营业日
+     * @param time 时间
+     * @return 营业日
+     */
+    LocalDate businessDayOf(Date time);
+}
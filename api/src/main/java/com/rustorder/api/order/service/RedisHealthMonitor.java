@@ -0,0 +1,37 @@
+package com.rustorder.api.order.service;
+
+/**
+ * Redis健康状态（熔断器）
+ * 业务调用不再逐次PING，而是根据最近的调用结果判断：连续失败达到阈值后熔断，
+ * 熔断期间直接走本地降级，由后台定期探测恢复
+ */
+public interface RedisHealthMonitor {
+
+    enum State {
+        CLOSED,     // 正常，请求直接访问Redis
+        OPEN,       // 熔断，请求直接降级，后台定期探测
+        HALF_OPEN   // 探测成功，每次只放行一个试探请求，连续成功后恢复，任一失败重新熔断
+    }
+
+    /**
+     * 当前是否可以访问Redis（未配置Redis或处于熔断状态时为false），不产生网络请求
+     * 半开状态下同一时刻只有一个调用方得到true，其余调用方直接降级；
+     * 得到true的调用方必须通过recordSuccess或recordFailure报告结果
+     */
+    boolean allowRequest();
+
+    /**
+     * 记录一次成功的Redis调用
+     */
+    void recordSuccess();
+
+    /**
+     * 记录一次失败的Redis调用
+     */
+    void recordFailure(Exception e);
+
+    /**
+     * 获取当前熔断状态
+     */
+    State getState();
+}
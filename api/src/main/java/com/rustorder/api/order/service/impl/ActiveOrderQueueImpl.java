@@ -0,0 +1,270 @@
+package com.rustorder.api.order.service.impl;
+
+import com.rustorder.api.order.dto.OrderDelta;
+import com.rustorder.api.order.dto.OrderDeltaResponse;
+import com.rustorder.api.order.dto.OrderResponse;
+import com.rustorder.api.order.dto.QueuePositionResponse;
+import com.rustorder.api.order.event.OrderChangedEvent;
+import com.rustorder.api.order.event.OrderDeltaEvent;
+import com.rustorder.api.order.model.OrderStatus;
+import com.rustorder.api.order.repository.OrderNewRepository;
+import com.rustorder.api.order.service.ActiveOrderQueue;
+import com.rustorder.api.order.service.OrderResponseConverter;
+import com.rustorder.api.order.service.QueueNumberAllocator;
+import com.rustorder.api.order.support.ActiveOrderIndex;
+import com.rustorder.api.order.support.QueueRankIndex;
+import com.rustorder.api.order.support.SequencedRingBuffer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Collectors;
+
+@Service
+public class ActiveOrderQueueImpl implements ActiveOrderQueue {
+    
+    private final OrderNewRepository orderRepository;
+    private final QueueNumberAllocator queueNumberAllocator;
+    // 按(营业日, 队列号)排序：队列号每个营业日从1开始，前一营业日遗留的订单仍排在当天订单之前
+    private final ActiveOrderIndex<OrderResponse> index;
+    // 仍在排队（待处理、已确认、制作中）订单的队列号排名，每个营业日一个索引
+    private final ConcurrentNavigableMap<Long, QueueRankIndex> rankIndexByDay = new ConcurrentSkipListMap<>();
+    // 用户ID -> 该用户仍在排队的订单ID
+    private final Map<String, Set<Long>> queuedOrdersByUser = new ConcurrentHashMap<>();
+    
+    private final ApplicationEventPublisher eventPublisher;
+    private final int deltaBufferSize;
+    // 最近的增量，客户端断线重连后从中补齐；重建读模型时连同epoch一起重置
+    private SequencedRingBuffer<OrderDelta> deltas;
+    private long epoch;
+    
+    @Autowired
+    public ActiveOrderQueueImpl(OrderNewRepository orderRepository, QueueNumberAllocator queueNumberAllocator,
+                                ApplicationEventPublisher eventPublisher,
+                                @Value("${rustorder.queue.delta-buffer-size:1000}") int deltaBufferSize) {
+        this.orderRepository = orderRepository;
+        this.queueNumberAllocator = queueNumberAllocator;
+        this.index = new ActiveOrderIndex<>(OrderResponse::getId, this::queueOrderOf);
+        this.eventPublisher = eventPublisher;
+        this.deltaBufferSize = deltaBufferSize;
+    }
+    
+    /**
+     * 启动时加载所有未结束的订单（连同订单项一次查询取回）
+     */
+    @PostConstruct
+    @Override
+    public synchronized void rebuild() {
+        List<OrderResponse> activeOrders = orderRepository.findWithItemsByOrderStatusIn(OrderStatus.activeStatuses())
+                .stream()
+                .map(OrderResponseConverter::toOrderResponse)
+                .collect(Collectors.toList());
+        index.reset(activeOrders);
+        rankIndexByDay.clear();
+        queuedOrdersByUser.clear();
+        activeOrders.forEach(order -> track(order, 1));
+        deltas = new SequencedRingBuffer<>(deltaBufferSize);
+        epoch = Math.max(System.currentTimeMillis(), epoch + 1);
+    }
+    
+    @Override
+    public List<OrderResponse> getOrders(Collection<OrderStatus> statuses) {
+        Set<OrderStatus> wanted = statuses.isEmpty() ? EnumSet.noneOf(OrderStatus.class) : EnumSet.copyOf(statuses);
+        return index.values(order -> wanted.contains(order.getOrderStatus()));
+    }
+    
+    @Override
+    public Optional<OrderResponse> getOrder(Long orderId) {
+        return index.get(orderId);
+    }
+    
+    @Override
+    public QueuePositionResponse getUserQueuePosition(String userId) {
+        OrderResponse userOrder = queuedOrdersByUser.getOrDefault(userId, Set.of()).stream()
+                .map(orderId -> index.get(orderId).orElse(null))
+                .filter(order -> order != null && order.getOrderStatus().isInQueue())
+                .min(Comparator.comparing(this::queueOrderOf))
+                .orElse(null);
+        
+        if (userOrder == null) {
+            return new QueuePositionResponse(false, 0, 0, null);
+        }
+        
+        // 前面的订单数 = 更早营业日仍在排队的订单数 + 同一营业日中队列号更小的订单数
+        long day = businessDayOf(userOrder);
+        long position = 0;
+        for (QueueRankIndex earlier : rankIndexByDay.headMap(day).values()) {
+            position += earlier.size();
+        }
+        QueueRankIndex sameDay = rankIndexByDay.get(day);
+        if (sameDay != null) {
+            position += sameDay.countBefore(userOrder.getQueueNumber());
+        }
+        return new QueuePositionResponse(
+            true,
+            (int) position,
+            userOrder.getQueueNumber(),
+            userOrder.getOrderStatus().getDisplayName()
+        );
+    }
+    
+    /**
+     * 与读模型的写入互斥，快照和lastSequence对应同一时刻
+     */
+    @Override
+    public synchronized OrderDeltaResponse getDeltasSince(Long epoch, Long since) {
+        if (epoch != null && epoch == this.epoch && since != null) {
+            Optional<List<OrderDelta>> missed = deltas.since(since);
+            if (missed.isPresent()) {
+                return new OrderDeltaResponse(this.epoch, deltas.lastSequence(), false, missed.get(), null);
+            }
+        }
+        List<OrderResponse> orders = getOrders(OrderStatus.activeStatuses());
+        return new OrderDeltaResponse(this.epoch, deltas.lastSequence(), true, List.of(), orders);
+    }
+    
+    /**
+     * 订单变更在事务提交后同步到读模型，回滚的变更不会出现在队列中
+     * 写入互相串行，保证排名索引与订单索引一致；读取不加锁
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onOrderChanged(OrderChangedEvent event) {
+        OrderResponse order = event.getOrder();
+        OrderResponse previous = index.get(order.getId()).orElse(null);
+        if (previous != null) {
+            track(previous, -1);
+        }
+        boolean deleted = event.getType() == OrderChangedEvent.Type.DELETED;
+        if (deleted || order.getOrderStatus().isTerminal()) {
+            index.remove(order.getId());
+        } else {
+            index.put(order);
+            track(order, 1);
+        }
+        publishDelta(previous, order, deleted);
+    }
+    
+    /**
+     * 记录并发布本次变化的增量；不影响队列的变化（如已结束的订单再次修改）不产生增量
+     * 在写锁内发布，推送顺序与序号一致
+     */
+    private void publishDelta(OrderResponse previous, OrderResponse order, boolean deleted) {
+        OrderDelta.Type type;
+        OrderResponse added = null;
+        Map<String, Object> changes = null;
+        if (deleted || order.getOrderStatus().isTerminal()) {
+            if (previous == null) {
+                return;
+            }
+            type = OrderDelta.Type.REMOVED;
+            if (!deleted) {
+                changes = Map.of("orderStatus", order.getOrderStatus());
+            }
+        } else if (previous == null) {
+            type = OrderDelta.Type.ADDED;
+            added = order;
+        } else {
+            changes = changedFields(previous, order);
+            if (changes.isEmpty()) {
+                return;
+            }
+            type = changes.containsKey("orderStatus") ? OrderDelta.Type.STATUS_CHANGED : OrderDelta.Type.UPDATED;
+        }
+        
+        OrderResponse addedOrder = added;
+        Map<String, Object> changedFields = changes;
+        OrderDelta delta = deltas.append(sequence ->
+                new OrderDelta(sequence, type, order.getId(), addedOrder, changedFields));
+        eventPublisher.publishEvent(new OrderDeltaEvent(epoch, delta));
+    }
+    
+    /**
+     * 前后两个快照中值不同的字段
+     */
+    private static Map<String, Object> changedFields(OrderResponse before, OrderResponse after) {
+        Map<String, Object> changes = new LinkedHashMap<>();
+        putIfChanged(changes, "userId", before.getUserId(), after.getUserId());
+        putIfChanged(changes, "pickupCode", before.getPickupCode(), after.getPickupCode());
+        putIfChanged(changes, "orderStatus", before.getOrderStatus(), after.getOrderStatus());
+        putIfChanged(changes, "queueNumber", before.getQueueNumber(), after.getQueueNumber());
+        putIfChanged(changes, "notes", before.getNotes(), after.getNotes());
+        putIfChanged(changes, "totalPrice", before.getTotalPrice(), after.getTotalPrice());
+        putIfChanged(changes, "totalEstimatedTime", before.getTotalEstimatedTime(), after.getTotalEstimatedTime());
+        putIfChanged(changes, "createdAt", before.getCreatedAt(), after.getCreatedAt());
+        putIfChanged(changes, "updatedAt", before.getUpdatedAt(), after.getUpdatedAt());
+        putIfChanged(changes, "items", before.getItems(), after.getItems());
+        return changes;
+    }
+    
+    private static void putIfChanged(Map<String, Object> changes, String field, Object before, Object after) {
+        // 从数据库加载的时间是Timestamp，与Date比较时equals不对称，按时间点比较
+        if (before instanceof Date beforeDate && after instanceof Date afterDate
+                && beforeDate.getTime() == afterDate.getTime()) {
+            return;
+        }
+        if (!Objects.equals(before, after)) {
+            changes.put(field, after);
+        }
+    }
+    
+    /**
+     * 增减排队订单在排名索引和用户索引中的记录
+     */
+    private void track(OrderResponse order, int delta) {
+        if (!order.getOrderStatus().isInQueue() || order.getQueueNumber() == null) {
+            return;
+        }
+        long day = businessDayOf(order);
+        if (delta > 0) {
+            rankIndexByDay.computeIfAbsent(day, key -> new QueueRankIndex()).add(order.getQueueNumber());
+            queuedOrdersByUser.computeIfAbsent(order.getUserId(), userId -> ConcurrentHashMap.newKeySet())
+                    .add(order.getId());
+        } else {
+            QueueRankIndex dayIndex = rankIndexByDay.get(day);
+            if (dayIndex != null) {
+                dayIndex.remove(order.getQueueNumber());
+                if (dayIndex.size() == 0) {
+                    rankIndexByDay.remove(day);
+                }
+            }
+            queuedOrdersByUser.computeIfPresent(order.getUserId(), (userId, orderIds) -> {
+                orderIds.remove(order.getId());
+                return orderIds.isEmpty() ? null : orderIds;
+            });
+        }
+    }
+    
+    /**
+     * 排队顺序：高32位为营业日(epochDay)，低32位为队列号，跨营业日单调递增
+     */
+    private Long queueOrderOf(OrderResponse order) {
+        if (order.getQueueNumber() == null) {
+            return null;
+        }
+        return (businessDayOf(order) << 32) | (order.getQueueNumber() & 0xFFFFFFFFL);
+    }
+    
+    /**
+     * 订单所属营业日，队列号在创建时分配，与创建时间属于同一营业日
+     */
+    private long businessDayOf(OrderResponse order) {
+        Date createdAt = order.getCreatedAt() != null ? order.getCreatedAt() : new Date();
+        return queueNumberAllocator.businessDayOf(createdAt).toEpochDay();
+    }
+}
@@ -1,123 +1,307 @@
 package com.rustorder.api.order.service.impl;
 
+import com.rustorder.api.order.exception.InvalidCartException;
 import com.rustorder.api.order.model.Cart;
 import com.rustorder.api.order.model.CartItem;
 import com.rustorder.api.order.service.CartService;
+import com.rustorder.api.order.service.RedisHealthMonitor;
+import com.rustorder.api.order.support.CartHashCodec;
+import com.rustorder.api.order.support.StripedLocks;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.redis.RedisConnectionFailureException;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Service;
 
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.TimeUnit;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 @Service
 public class CartServiceImpl implements CartService {
-    
+
     private static final String CART_KEY_PREFIX = "cart:";
+    private static final String CART_HASH_KEY_PREFIX = "cart:h:"; // 与整体存储的键分开，避免类型冲突
     private static final long CART_EXPIRE_TIME = 24; // 24小时过期
-    
-    // 内存存储作为Redis的备用方案
-    private final Map<String, Cart> cartStorage = new ConcurrentHashMap<>();
-    
+    private static final String CART_EXPIRE_SECONDS = String.valueOf(TimeUnit.HOURS.toSeconds(CART_EXPIRE_TIME));
+
+    /**
+     * 本地购物车缓存名，容量与过期时间见rustorder.cache.caches.local-carts，
+     * 闲置CART_EXPIRE_TIME小时后过期，读写都会重新计时，统计见/api/admin/cache/stats
+     */
+    public static final String LOCAL_CART_CACHE = "local-carts";
+
+    // 以下脚本在一次往返中原子地修改单个商品、刷新过期时间并返回整个购物车
+    // KEYS[1]=购物车键，KEYS[2]=旧的整体存储键，ARGV[1]=商品字段，之后依次为各脚本的参数，最后两个参数为当前时间和过期秒数
+    // 哈希不存在而旧购物车存在时不做修改，返回迁移标记
+    private static final String CHECK_LEGACY =
+            "if redis.call('EXISTS', KEYS[1]) == 0 and redis.call('EXISTS', KEYS[2]) == 1 then " +
+            "  return {'" + CartHashCodec.LEGACY + "'} " +
+            "end ";
+
+    private static final String TOUCH_AND_READ =
+            "redis.call('HSETNX', KEYS[1], '" + CartHashCodec.CREATED_AT + "', ARGV[#ARGV - 1]) " +
+            "redis.call('HSET', KEYS[1], '" + CartHashCodec.UPDATED_AT + "', ARGV[#ARGV - 1]) " +
+            "redis.call('EXPIRE', KEYS[1], ARGV[#ARGV]) " +
+            "return redis.call('HGETALL', KEYS[1])";
+
+    // ARGV[2]=增加的数量，ARGV[3]=首次加入时间与单价
+    private static final RedisScript<List> ADD_ITEM_SCRIPT = new DefaultRedisScript<>(
+            CHECK_LEGACY +
+            "redis.call('HINCRBY', KEYS[1], '" + CartHashCodec.QUANTITY_PREFIX + "' .. ARGV[1], ARGV[2]) " +
+            "redis.call('HSETNX', KEYS[1], '" + CartHashCodec.META_PREFIX + "' .. ARGV[1], ARGV[3]) " +
+            TOUCH_AND_READ, List.class);
+
+    // ARGV[2]=新数量，小于等于0时移除；商品不存在时不做修改
+    private static final RedisScript<List> UPDATE_QUANTITY_SCRIPT = new DefaultRedisScript<>(
+            CHECK_LEGACY +
+            "if redis.call('HEXISTS', KEYS[1], '" + CartHashCodec.QUANTITY_PREFIX + "' .. ARGV[1]) == 1 then " +
+            "  if tonumber(ARGV[2]) <= 0 then " +
+            "    redis.call('HDEL', KEYS[1], '" + CartHashCodec.QUANTITY_PREFIX + "' .. ARGV[1], '" + CartHashCodec.META_PREFIX + "' .. ARGV[1]) " +
+            "  else " +
+            "    redis.call('HSET', KEYS[1], '" + CartHashCodec.QUANTITY_PREFIX + "' .. ARGV[1], ARGV[2]) " +
+            "  end " +
+            "end " +
+            TOUCH_AND_READ, List.class);
+
+    private static final RedisScript<List> REMOVE_ITEM_SCRIPT = new DefaultRedisScript<>(
+            CHECK_LEGACY +
+            "redis.call('HDEL', KEYS[1], '" + CartHashCodec.QUANTITY_PREFIX + "' .. ARGV[1], '" + CartHashCodec.META_PREFIX + "' .. ARGV[1]) " +
+            TOUCH_AND_READ, List.class);
+
+    // 旧购物车转换为哈希：KEYS[1]=购物车键，KEYS[2]=旧的整体存储键，ARGV[1]=过期秒数，之后为哈希的字段、值
+    // 哈希已被其他请求创建时保留哈希；两种情况都删除旧键
+    private static final RedisScript<List> MIGRATE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 0 then " +
+            "  redis.call('HSET', KEYS[1], unpack(ARGV, 2)) " +
+            "  redis.call('EXPIRE', KEYS[1], ARGV[1]) " +
+            "end " +
+            "redis.call('DEL', KEYS[2]) " +
+            "return redis.call('HGETALL', KEYS[1])", List.class);
+
     @Autowired(required = false)
     private RedisTemplate<String, Object> redisTemplate;
-    
+
+    @Autowired(required = false)
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private RedisHealthMonitor redisHealthMonitor;
+
+    // 内存存储作为Redis的备用方案，按容量和过期时间淘汰
+    private final Cache localCarts;
+
+    // 按用户分段的锁，同一用户的读取-修改-保存串行执行，不同用户互不影响
+    private final StripedLocks cartLocks;
+
+    @Autowired
+    public CartServiceImpl(CacheManager cacheManager,
+                           @Value("${rustorder.cart.lock-stripes:64}") int lockStripes) {
+        this.localCarts = cacheManager.getCache(LOCAL_CART_CACHE);
+        this.cartLocks = new StripedLocks(lockStripes);
+    }
+
+    // Redis存储方式：hash按商品字段原子修改（默认），value整体序列化存储
+    @Value("${rustorder.cart.redis-storage:hash}")
+    private String redisStorage;
+
     @Override
     public Cart getCart(String userId) {
-        if (isRedisAvailable()) {
-            try {
-                String key = CART_KEY_PREFIX + userId;
-                Cart cart = (Cart) redisTemplate.opsForValue().get(key);
-                if (cart == null) {
-                    cart = new Cart(userId);
-                    saveCartToRedis(cart);
-                }
+        if (redisHealthMonitor.allowRequest()) {
+            Cart cart = callRedis(() -> isHashStorage() ? readCartHash(userId) : readCartValue(userId));
+            if (cart != null) {
                 return cart;
-            } catch (Exception e) {
-                // Redis失败时降级到内存存储
-                return cartStorage.computeIfAbsent(userId, Cart::new);
             }
-        } else {
-            return cartStorage.computeIfAbsent(userId, Cart::new);
         }
+        // 内存中的购物车是共享对象，返回副本
+        return cartLocks.withLock(userId, () -> localCart(userId).copy());
     }
-    
+
     @Override
     public Cart addItemToCart(String userId, CartItem item) {
-        Cart cart = getCart(userId);
-        cart.addItem(item);
-        saveCart(cart);
-        return cart;
+        int quantity = item.getQuantity() != null ? item.getQuantity() : 1;
+        if (quantity <= 0) {
+            throw new InvalidCartException("商品数量必须大于0");
+        }
+        item.setQuantity(quantity);
+        Cart updated = updateCartHash(userId, ADD_ITEM_SCRIPT,
+                CartHashCodec.itemField(item.getName(), item.getOrderType()),
+                String.valueOf(quantity),
+                CartHashCodec.meta(System.currentTimeMillis(), item.getPrice()));
+        if (updated != null) {
+            return updated;
+        }
+        return mutateCart(userId, cart -> cart.addItem(item));
     }
-    
+
     @Override
     public Cart removeItemFromCart(String userId, String name, String orderType) {
-        Cart cart = getCart(userId);
-        cart.removeItem(name, orderType);
-        saveCart(cart);
-        return cart;
+        Cart updated = updateCartHash(userId, REMOVE_ITEM_SCRIPT, CartHashCodec.itemField(name, orderType));
+        if (updated != null) {
+            return updated;
+        }
+        return mutateCart(userId, cart -> cart.removeItem(name, orderType));
     }
-    
+
     @Override
     public Cart updateItemQuantity(String userId, String name, String orderType, Integer quantity) {
-        Cart cart = getCart(userId);
-        for (CartItem item : cart.getItems()) {
-            if (item.getName().equals(name) && item.getOrderType().equals(orderType)) {
-                if (quantity <= 0) {
-                    cart.removeItem(name, orderType);
-                } else {
-                    item.setQuantity(quantity);
-                }
-                break;
-            }
+        // 0表示移除商品
+        if (quantity == null || quantity < 0) {
+            throw new InvalidCartException("商品数量不能为空或小于0");
         }
-        saveCart(cart);
-        return cart;
+        Cart updated = updateCartHash(userId, UPDATE_QUANTITY_SCRIPT,
+                CartHashCodec.itemField(name, orderType), String.valueOf(quantity));
+        if (updated != null) {
+            return updated;
+        }
+        return mutateCart(userId, cart -> cart.updateItemQuantity(name, orderType, quantity));
     }
-    
+
     @Override
     public void clearCart(String userId) {
-        Cart cart = getCart(userId);
-        cart.clear();
-        saveCart(cart);
+        if (isHashStorage() && redisHealthMonitor.allowRequest()
+                && callRedis(() -> stringRedisTemplate.delete(List.of(CART_HASH_KEY_PREFIX + userId, CART_KEY_PREFIX + userId))) != null) {
+            return;
+        }
+        mutateCart(userId, Cart::clear);
     }
-    
+
     @Override
     public boolean isCartEmpty(String userId) {
         Cart cart = getCart(userId);
         return cart.getItems().isEmpty();
     }
-    
+
+    private boolean isHashStorage() {
+        return "hash".equalsIgnoreCase(redisStorage) && stringRedisTemplate != null;
+    }
+
     /**
-     * 检查Redis是否可用
+     * 执行Redis操作并向熔断器报告结果，连接失败或超时时返回null由调用方降级
+     * 脚本或数据错误说明Redis本身可用，不计入熔断，直接抛出，避免修改落到本地购物车
      */
-    private boolean isRedisAvailable() {
-        if (redisTemplate == null) {
-            return false;
-        }
+    private <T> T callRedis(Supplier<T> action) {
+        T result;
         try {
-            redisTemplate.getConnectionFactory().getConnection().ping();
-            return true;
-        } catch (Exception e) {
-            return false;
+            result = action.get();
+        } catch (RedisConnectionFailureException | QueryTimeoutException e) {
+            redisHealthMonitor.recordFailure(e);
+            return null;
+        } catch (RuntimeException e) {
+            redisHealthMonitor.recordSuccess();
+            throw e;
+        }
+        redisHealthMonitor.recordSuccess();
+        return result;
+    }
+
+    /**
+     * 哈希存储下用脚本修改单个商品，返回修改后的购物车；未使用哈希存储或Redis不可用时返回null
+     */
+    private Cart updateCartHash(String userId, RedisScript<List> script, String... args) {
+        if (!isHashStorage() || !redisHealthMonitor.allowRequest()) {
+            return null;
+        }
+        String[] scriptArgs = new String[args.length + 2];
+        System.arraycopy(args, 0, scriptArgs, 0, args.length);
+        scriptArgs[args.length] = String.valueOf(System.currentTimeMillis());
+        scriptArgs[args.length + 1] = CART_EXPIRE_SECONDS;
+        List<String> keys = List.of(CART_HASH_KEY_PREFIX + userId, CART_KEY_PREFIX + userId);
+        return callRedis(() -> {
+            List<?> result = stringRedisTemplate.execute(script, keys, (Object[]) scriptArgs);
+            if (CartHashCodec.isLegacy(result)) {
+                migrateLegacyCart(userId);
+                result = stringRedisTemplate.execute(script, keys, (Object[]) scriptArgs);
+            }
+            return CartHashCodec.decode(userId, result);
+        });
+    }
+
+    /**
+     * 持有该用户的锁完成读取-修改-保存，返回修改后的副本
+     * 哈希存储的脚本修改由Redis保证原子性，不需要加锁
+     */
+    private Cart mutateCart(String userId, Consumer<Cart> mutation) {
+        return cartLocks.withLock(userId, () -> {
+            Cart cart = fallbackCart(userId);
+            mutation.accept(cart);
+            saveCart(cart);
+            return cart.copy();
+        });
+    }
+
+    /**
+     * 无法通过脚本修改时使用的购物车：哈希存储降级到内存，整体存储沿用读取-修改-保存
+     */
+    private Cart fallbackCart(String userId) {
+        return isHashStorage() ? localCart(userId) : getCart(userId);
+    }
+
+    private Cart localCart(String userId) {
+        return localCarts.get(userId, () -> new Cart(userId));
+    }
+
+    private Cart readCartHash(String userId) {
+        Map<String, String> hash = stringRedisTemplate.<String, String>opsForHash().entries(CART_HASH_KEY_PREFIX + userId);
+        if (hash.isEmpty()) {
+            return migrateLegacyCart(userId);
         }
+        return CartHashCodec.decode(userId, hash);
     }
-    
+
+    /**
+     * 哈希不存在时检查整体存储的旧购物车（切换存储方式前写入），存在则转换为哈希并删除旧键
+     */
+    private Cart migrateLegacyCart(String userId) {
+        String legacyKey = CART_KEY_PREFIX + userId;
+        Cart legacy = redisTemplate != null ? (Cart) redisTemplate.opsForValue().get(legacyKey) : null;
+        if (legacy == null) {
+            return new Cart(userId);
+        }
+        List<String> fields = CartHashCodec.encode(legacy, System.currentTimeMillis());
+        Object[] args = new Object[fields.size() + 1];
+        args[0] = CART_EXPIRE_SECONDS;
+        for (int i = 0; i < fields.size(); i++) {
+            args[i + 1] = fields.get(i);
+        }
+        List<?> migrated = stringRedisTemplate.execute(MIGRATE_SCRIPT, List.of(CART_HASH_KEY_PREFIX + userId, legacyKey), args);
+        return CartHashCodec.decode(userId, migrated);
+    }
+
+    private Cart readCartValue(String userId) {
+        String key = CART_KEY_PREFIX + userId;
+        Cart cart = (Cart) redisTemplate.opsForValue().get(key);
+        if (cart == null) {
+            cart = new Cart(userId);
+            saveCartToRedis(cart);
+        }
+        return cart;
+    }
+
     /**
      * 保存购物车（自动选择存储方式）
+     * 是否访问Redis由熔断器根据最近的调用结果决定，不再逐次PING
+     * 哈希存储的修改已由脚本完成，这里只处理整体存储
      */
     private void saveCart(Cart cart) {
-        if (isRedisAvailable()) {
-            try {
-                saveCartToRedis(cart);
-            } catch (Exception e) {
-                // Redis失败时，数据已经在内存中，无需额外操作
-            }
+        if (!isHashStorage() && redisHealthMonitor.allowRequest() && callRedis(() -> {
+            saveCartToRedis(cart);
+            return Boolean.TRUE;
+        }) != null) {
+            return;
         }
-        // 内存存储已经在getCart时处理
+        // 未写入Redis时保存到内存，重新放入以更新权重并重新计算过期时间
+        localCarts.put(cart.getUserId(), cart);
     }
-    
+
     /**
      * 保存购物车到Redis
      */
@@ -125,4 +309,4 @@ public class CartServiceImpl implements CartService {
         String key = CART_KEY_PREFIX + cart.getUserId();
         redisTemplate.opsForValue().set(key, cart, CART_EXPIRE_TIME, TimeUnit.HOURS);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,415 @@
+package com.rustorder.api.order.service.impl;
+
+import com.rustorder.api.order.dto.OrderItemResponse;
+import com.rustorder.api.order.event.OrderChangedEvent;
+import com.rustorder.api.order.model.Dish;
+import com.rustorder.api.order.model.OrderStatus;
+import com.rustorder.api.order.repository.DishRepository;
+import com.rustorder.api.order.service.DishCatalogService;
+import com.rustorder.api.order.support.DishCatalogSnapshot;
+import com.rustorder.api.order.support.DishRankIndex;
+import com.rustorder.api.order.support.RatingAccumulator;
+import com.rustorder.api.order.support.TransactionCallbacks;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+@Service
+public class DishCatalogServiceImpl implements DishCatalogService {
+    
+    // 按落库前的次数加权合并平均分；MySQL按书写顺序赋值，rating必须在rating_count之前计算
+    private static final String FLUSH_RATING_SQL =
+            "UPDATE t_dish SET rating = ROUND((COALESCE(rating, 0) * COALESCE(rating_count, 0) + ?) / (COALESCE(rating_count, 0) + ?), 2), " +
+            "rating_count = COALESCE(rating_count, 0) + ?, updated_at = ? WHERE id = ?";
+    private static final String FLUSH_SALES_SQL =
+            "UPDATE t_dish SET sales_count = GREATEST(COALESCE(sales_count, 0) + ?, 0), updated_at = ? WHERE id = ?";
+    
+    private final DishRepository dishRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    
+    // 当前版本的目录快照，读取无锁，写入后整体替换
+    private final AtomicReference<DishCatalogSnapshot> current =
+            new AtomicReference<>(DishCatalogSnapshot.of(0, List.of()));
+    // 热门排名索引，随快照一起按变更的菜品增量调整
+    private final DishRankIndex popularIndex = new DishRankIndex(DishRankIndex.POPULAR_ORDER);
+    // 评分排名索引，评分或销量变化时原地调整位置
+    private final DishRankIndex ratingIndex = new DishRankIndex(DishRankIndex.TOP_RATED_ORDER);
+    // 有新评分或销量、尚未调整排名的菜品ID，由refreshRanks批量处理，评分和销量请求不等待排名索引
+    private final Set<Long> dirtyRanks = ConcurrentHashMap.newKeySet();
+    // 排名索引或快照每次变化后递增，包含实时评分的视图按此版本缓存渲染结果
+    private final AtomicLong rankVersion = new AtomicLong();
+    // 菜品ID -> 评分累加器，评分只写内存，由flushCounters定期落库
+    private final Map<Long, RatingAccumulator> ratingAccumulators = new ConcurrentHashMap<>();
+    // 菜品ID -> 未落库的销量增量，落库时取出清零
+    private final Map<Long, LongAdder> pendingSales = new ConcurrentHashMap<>();
+    // 保证同一时刻只有一次落库，避免同一段增量被重复写入
+    private final Object counterFlushLock = new Object();
+    
+    @Autowired
+    public DishCatalogServiceImpl(DishRepository dishRepository,
+                                  JdbcTemplate jdbcTemplate,
+                                  TransactionTemplate transactionTemplate) {
+        this.dishRepository = dishRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+    
+    @Override
+    public DishCatalogSnapshot snapshot() {
+        return current.get();
+    }
+    
+    @Override
+    public Optional<Dish> getDish(Long id) {
+        return snapshot().getDish(id).map(this::withLiveCounters);
+    }
+    
+    @Override
+    public long rankVersion() {
+        return rankVersion.get();
+    }
+    
+    @Override
+    public List<Dish> getPopularDishes(int limit) {
+        return popularIndex.top(limit);
+    }
+    
+    @Override
+    public List<Dish> getTopRatedDishes(double minRating, int limit) {
+        return ratingIndex.topBefore(DishRankIndex.minRatingBound(minRating), limit);
+    }
+    
+    /**
+     * 启动时加载全部菜品
+     */
+    @PostConstruct
+    @Override
+    public synchronized void reload() {
+        List<Dish> dishes = dishRepository.findAll();
+        DishCatalogSnapshot snapshot = DishCatalogSnapshot.of(current.get().getVersion() + 1, dishes);
+        // 未落库的评分增量保留，以数据库中的最新值为基准
+        snapshot.getAllDishes().forEach(dish -> Optional.ofNullable(ratingAccumulators.get(dish.getId()))
+                .ifPresent(accumulator -> accumulator.rebase(dish.getRating(), dish.getRatingCount())));
+        List<Dish> ranked = snapshot.getAllDishes().stream().map(this::withLiveCounters).toList();
+        popularIndex.reset(ranked);
+        ratingIndex.reset(ranked);
+        current.set(snapshot);
+        rankVersion.incrementAndGet();
+    }
+    
+    @Override
+    @Transactional
+    public Dish createDish(Dish dish) {
+        Date now = new Date();
+        dish.setCreatedAt(now);
+        dish.setUpdatedAt(now);
+        applyDefaults(dish);
+        Dish savedDish = dishRepository.save(dish);
+        publish(List.of(savedDish));
+        return savedDish;
+    }
+    
+    @Override
+    @Transactional
+    public List<Dish> createDishes(List<Dish> dishes) {
+        Date now = new Date();
+        dishes.forEach(dish -> {
+            dish.setCreatedAt(now);
+            dish.setUpdatedAt(now);
+            applyDefaults(dish);
+        });
+        List<Dish> savedDishes = dishRepository.saveAll(dishes);
+        publish(savedDishes);
+        return savedDishes;
+    }
+    
+    @Override
+    @Transactional
+    public Optional<Dish> updateDish(Long id, Dish dish) {
+        Optional<Dish> existingDish = dishRepository.findById(id);
+        if (existingDish.isEmpty()) {
+            return Optional.empty();
+        }
+        
+        dish.setId(id);
+        dish.setUpdatedAt(new Date());
+        // 保留创建时间
+        dish.setCreatedAt(existingDish.get().getCreatedAt());
+        
+        Dish updatedDish = dishRepository.save(dish);
+        // 编辑时可能直接修改了评分，以提交后的值作为评分累加器的基准
+        TransactionCallbacks.afterCommit(() -> Optional.ofNullable(ratingAccumulators.get(id))
+                .ifPresent(accumulator -> accumulator.rebase(updatedDish.getRating(), updatedDish.getRatingCount())));
+        publish(List.of(updatedDish));
+        return Optional.of(updatedDish);
+    }
+    
+    @Override
+    @Transactional
+    public boolean deleteDish(Long id) {
+        if (!dishRepository.existsById(id)) {
+            return false;
+        }
+        dishRepository.deleteById(id);
+        TransactionCallbacks.afterCommit(() -> applyRemoval(id));
+        return true;
+    }
+    
+    @Override
+    @Transactional
+    public Optional<Dish> setDishAvailability(Long id, Boolean isAvailable) {
+        return dishRepository.findById(id).map(dish -> {
+            dish.setIsAvailable(isAvailable);
+            dish.setUpdatedAt(new Date());
+            Dish updatedDish = dishRepository.save(dish);
+            publish(List.of(updatedDish));
+            return updatedDish;
+        });
+    }
+    
+    @Override
+    public Optional<Dish> rateDish(Long id, double rating) {
+        return snapshot().getDish(id).map(dish -> {
+            RatingAccumulator accumulator = ratingAccumulators.computeIfAbsent(id,
+                    key -> new RatingAccumulator(dish.getRating(), dish.getRatingCount()));
+            accumulator.record(rating);
+            dirtyRanks.add(id);
+            return withLiveCounters(dish);
+        });
+    }
+    
+    @Override
+    public Optional<Dish> incrementSales(Long id, int quantity) {
+        return snapshot().getDish(id).map(dish -> {
+            pendingSales.computeIfAbsent(id, key -> new LongAdder()).add(quantity);
+            dirtyRanks.add(id);
+            return withLiveCounters(dish);
+        });
+    }
+    
+    /**
+     * 订单完成时按订单项累加销量，已完成的订单被改回其他状态时扣回
+     * 订单项只记录菜品名称，通过目录快照反查菜品
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderChanged(OrderChangedEvent event) {
+        if (event.getType() != OrderChangedEvent.Type.STATUS_CHANGED || event.getOrder().getItems() == null) {
+            return;
+        }
+        boolean completed = event.getOrder().getOrderStatus() == OrderStatus.COMPLETED;
+        boolean wasCompleted = event.getPreviousStatus() == OrderStatus.COMPLETED;
+        if (completed == wasCompleted) {
+            return;
+        }
+        int sign = completed ? 1 : -1;
+        DishCatalogSnapshot snapshot = snapshot();
+        for (OrderItemResponse item : event.getOrder().getItems()) {
+            if (item.getQuantity() == null) {
+                continue;
+            }
+            snapshot.getDishByName(item.getDishName()).ifPresent(dish -> {
+                pendingSales.computeIfAbsent(dish.getId(), key -> new LongAdder()).add(sign * item.getQuantity());
+                dirtyRanks.add(dish.getId());
+            });
+        }
+    }
+    
+    /**
+     * 按当前平均分和销量批量调整有新评分或销量的菜品的排名
+     * 先移出待处理集合再读取累加值，读取之后的评分会重新加入集合，在下一批中处理
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${rustorder.dishes.rank-refresh-interval:100}")
+    public void refreshRanks() {
+        if (dirtyRanks.isEmpty()) {
+            return;
+        }
+        // 与快照替换串行，后执行的一方总是读到最新的快照和累加值；锁只由后台线程获取
+        synchronized (this) {
+            for (Iterator<Long> iterator = dirtyRanks.iterator(); iterator.hasNext(); ) {
+                Long id = iterator.next();
+                iterator.remove();
+                current.get().getDish(id).map(this::withLiveCounters).ifPresent(dish -> {
+                    popularIndex.put(dish);
+                    ratingIndex.put(dish);
+                });
+            }
+            rankVersion.incrementAndGet();
+        }
+    }
+    
+    /**
+     * 定期及关闭前落库，评分和销量请求本身不访问数据库
+     * 评分落库失败时水位线不前进，销量增量加回计数器，都在下一次落库时重试
+     */
+    @Override
+    @PreDestroy
+    @Scheduled(fixedDelayString = "${rustorder.dishes.counter-flush-interval:1000}")
+    public void flushCounters() {
+        synchronized (counterFlushLock) {
+            Timestamp now = new Timestamp(System.currentTimeMillis());
+            
+            Map<Long, Long> marks = new HashMap<>();
+            List<Object[]> ratingBatch = new ArrayList<>();
+            ratingAccumulators.forEach((id, accumulator) -> {
+                long mark = accumulator.mark();
+                RatingAccumulator.Pending pending = accumulator.pendingUntil(mark);
+                if (pending.count() > 0) {
+                    marks.put(id, mark);
+                    ratingBatch.add(new Object[]{pending.sum(), pending.count(), pending.count(), now, id});
+                }
+            });
+            
+            Map<Long, Long> salesDeltas = new HashMap<>();
+            List<Object[]> salesBatch = new ArrayList<>();
+            pendingSales.forEach((id, sales) -> {
+                long delta = sales.sumThenReset();
+                if (delta != 0) {
+                    salesDeltas.put(id, delta);
+                    salesBatch.add(new Object[]{delta, now, id});
+                }
+            });
+            
+            if (ratingBatch.isEmpty() && salesBatch.isEmpty()) {
+                return;
+            }
+            Set<Long> changedIds = new HashSet<>(marks.keySet());
+            changedIds.addAll(salesDeltas.keySet());
+            
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    if (!ratingBatch.isEmpty()) {
+                        jdbcTemplate.batchUpdate(FLUSH_RATING_SQL, ratingBatch);
+                    }
+                    if (!salesBatch.isEmpty()) {
+                        jdbcTemplate.batchUpdate(FLUSH_SALES_SQL, salesBatch);
+                    }
+                    List<Dish> flushed = dishRepository.findAllById(changedIds);
+                    TransactionCallbacks.afterCommit(() -> applyCounters(flushed, changedIds, marks));
+                });
+            } catch (RuntimeException e) {
+                salesDeltas.forEach((id, delta) -> pendingSales.computeIfAbsent(id, key -> new LongAdder()).add(delta));
+                throw e;
+            }
+        }
+    }
+    
+    /**
+     * 事务提交后将变更的菜品合并进新版本快照
+     */
+    private void publish(List<Dish> changed) {
+        TransactionCallbacks.afterCommit(() -> applyChanges(changed));
+    }
+    
+    // 以下方法串行生成新版本，保证版本号递增且不会丢失并发的变更
+    
+    private synchronized void applyChanges(List<Dish> changed) {
+        // 评分以累加器中已落库的值为准，避免其他事务读到的旧评分覆盖刚落库的结果
+        changed.forEach(dish -> Optional.ofNullable(ratingAccumulators.get(dish.getId())).ifPresent(accumulator -> {
+            RatingAccumulator.Settled settled = accumulator.settled();
+            dish.setRating(settled.rating());
+            dish.setRatingCount(settled.ratingCount());
+        }));
+        DishCatalogSnapshot previous = current.get();
+        DishCatalogSnapshot snapshot = previous.withDishes(previous.getVersion() + 1, changed);
+        // 使用快照中的副本更新索引，索引中的实例不会再被修改；评分和销量包含落库后新增的部分
+        changed.forEach(dish -> snapshot.getDish(dish.getId()).map(this::withLiveCounters).ifPresent(copy -> {
+            popularIndex.put(copy);
+            ratingIndex.put(copy);
+        }));
+        current.set(snapshot);
+        rankVersion.incrementAndGet();
+    }
+    
+    /**
+     * 快照中的菜品叠加未落库的评分和销量，都没有时直接返回快照中的实例
+     */
+    private Dish withLiveCounters(Dish dish) {
+        RatingAccumulator accumulator = ratingAccumulators.get(dish.getId());
+        LongAdder sales = pendingSales.get(dish.getId());
+        long pending = sales != null ? sales.sum() : 0;
+        RatingAccumulator.Settled live = accumulator != null ? accumulator.current() : null;
+        boolean rated = live != null
+                && !(Objects.equals(dish.getRating(), live.rating()) && Objects.equals(dish.getRatingCount(), live.ratingCount()));
+        if (!rated && pending == 0) {
+            return dish;
+        }
+        Dish copy = DishCatalogSnapshot.copyOf(dish);
+        if (rated) {
+            copy.setRating(live.rating());
+            copy.setRatingCount(live.ratingCount());
+        }
+        if (pending != 0) {
+            copy.setSalesCount((int) Math.max(0, (dish.getSalesCount() != null ? dish.getSalesCount() : 0) + pending));
+        }
+        return copy;
+    }
+    
+    private synchronized void applyCounters(List<Dish> flushed, Set<Long> changedIds, Map<Long, Long> marks) {
+        Set<Long> missing = new HashSet<>(changedIds);
+        flushed.forEach(dish -> {
+            missing.remove(dish.getId());
+            Long mark = marks.get(dish.getId());
+            if (mark != null) {
+                ratingAccumulators.get(dish.getId()).settle(dish.getRating(), dish.getRatingCount(), mark);
+            }
+        });
+        // 落库期间被删除的菜品不再累积计数
+        missing.forEach(id -> {
+            ratingAccumulators.remove(id);
+            pendingSales.remove(id);
+        });
+        applyChanges(flushed);
+    }
+    
+    private synchronized void applyRemoval(Long id) {
+        ratingAccumulators.remove(id);
+        pendingSales.remove(id);
+        DishCatalogSnapshot previous = current.get();
+        popularIndex.remove(id);
+        ratingIndex.remove(id);
+        current.set(previous.withoutDish(previous.getVersion() + 1, id));
+        rankVersion.incrementAndGet();
+    }
+    
+    private static void applyDefaults(Dish dish) {
+        if (dish.getIsAvailable() == null) {
+            dish.setIsAvailable(true);
+        }
+        if (dish.getSortOrder() == null) {
+            dish.setSortOrder(0);
+        }
+        if (dish.getSalesCount() == null) {
+            dish.setSalesCount(0);
+        }
+        if (dish.getRating() == null) {
+            dish.setRating(0.0);
+        }
+        if (dish.getRatingCount() == null) {
+            dish.setRatingCount(0);
+        }
+    }
+}
@@ -2,8 +2,8 @@ package com.rustorder.api.order.service.impl;
 
 import com.rustorder.api.order.model.Dish;
 import com.rustorder.api.order.model.Menu;
-import com.rustorder.api.order.repository.DishRepository;
 import com.rustorder.api.order.repository.MenuRepository;
+import com.rustorder.api.order.service.DishCatalogService;
 import com.rustorder.api.order.service.MenuService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -12,71 +12,43 @@ import org.springframework.transaction.annotation.Transactional;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 @Service
 public class MenuServiceImpl implements MenuService {
     
     private final MenuRepository menuRepository;
-    private final DishRepository dishRepository;
+    // 菜单读取全部来自菜品目录快照（t_dish），不访问数据库
+    private final DishCatalogService dishCatalogService;
     
     @Autowired
-    public MenuServiceImpl(MenuRepository menuRepository, DishRepository dishRepository) {
+    public MenuServiceImpl(MenuRepository menuRepository, DishCatalogService dishCatalogService) {
         this.menuRepository = menuRepository;
-        this.dishRepository = dishRepository;
+        this.dishCatalogService = dishCatalogService;
     }
     
     @Override
     public List<Menu> getAvailableMenuItems() {
-        List<Dish> dishes = dishRepository.findByIsAvailableOrderByDishTypeAscSortOrderAsc(true);
-        return dishes.stream()
-                .map(this::convertDishToMenu)
-                .collect(Collectors.toList());
+        return dishCatalogService.snapshot().getAvailableMenus();
     }
     
     @Override
     public List<Menu> getAllMenuItems() {
-        List<Dish> dishes = dishRepository.findAll();
-        return dishes.stream()
-                .map(this::convertDishToMenu)
-                .collect(Collectors.toList());
+        return dishCatalogService.snapshot().getAllMenus();
     }
     
     @Override
     public List<Menu> getAvailableMenuItemsByType(String dishType) {
-        List<Dish> dishes = dishRepository.findByDishTypeAndIsAvailableOrderBySortOrderAscPriceAsc(dishType, true);
-        return dishes.stream()
-                .map(this::convertDishToMenu)
-                .collect(Collectors.toList());
+        return dishCatalogService.snapshot().getAvailableMenusByType(dishType);
     }
     
     @Override
     public Optional<Menu> getMenuItemByName(String dishName) {
-        Optional<Dish> dish = dishRepository.findByDishNameAndIsAvailable(dishName, true);
-        return dish.map(this::convertDishToMenu);
+        return dishCatalogService.snapshot().getAvailableMenuByName(dishName);
     }
     
     @Override
     public boolean isMenuItemAvailable(String dishName) {
-        return dishRepository.existsByDishNameAndIsAvailable(dishName, true);
-    }
-    
-    /**
-     * 将Dish对象转换为Menu对象
-     */
-    private Menu convertDishToMenu(Dish dish) {
-        Menu menu = new Menu();
-        menu.setId(dish.getId());
-        menu.setDishName(dish.getDishName());
-        menu.setDishType(dish.getDishType());
-        menu.setPrice(dish.getPrice());
-        menu.setDescription(dish.getDescription());
-        menu.setImageUrl(dish.getImageUrl());
-        menu.setIsAvailable(dish.getIsAvailable());
-        menu.setEstimatedTime(dish.getEstimatedTime());
-        menu.setCreatedAt(dish.getCreatedAt());
-        menu.setUpdatedAt(dish.getUpdatedAt());
-        return menu;
+        return dishCatalogService.snapshot().getAvailableDishByName(dishName).isPresent();
     }
     
     @Override
@@ -115,26 +87,26 @@ public class MenuServiceImpl implements MenuService {
     
     @Override
     public List<Dish> getAvailableDishes() {
-        return dishRepository.findByIsAvailableTrueOrderBySortOrderAsc();
+        return dishCatalogService.snapshot().getAvailableDishesBySortOrder();
     }
 
     @Override
     public List<Dish> getAllDishes() {
-        return dishRepository.findAllByOrderBySortOrderAsc();
+        return dishCatalogService.snapshot().getAllDishesBySortOrder();
     }
 
     @Override
     public List<Dish> getDishesByType(String dishType) {
-        return dishRepository.findByDishTypeAndIsAvailableTrueOrderBySortOrderAsc(dishType);
+        return dishCatalogService.snapshot().getAvailableDishesByType(dishType);
     }
 
     @Override
     public Dish getDishById(Long id) {
-        return dishRepository.findById(id).orElse(null);
+        return dishCatalogService.getDish(id).orElse(null);
     }
 
     @Override
     public boolean isDishAvailable(String dishName) {
-        return dishRepository.findByDishNameAndIsAvailableTrue(dishName).isPresent();
+        return dishCatalogService.snapshot().getAvailableDishByName(dishName).isPresent();
     }
 }
\ No newline at end of file
@@ -0,0 +1,155 @@
+package com.rustorder.api.order.service.impl;
+
+import com.rustorder.api.order.event.OrderDeltaEvent;
+import com.rustorder.api.order.event.OrderNotificationEvent;
+import com.rustorder.api.order.model.Order;
+import com.rustorder.api.order.service.OrderNotificationDispatcher;
+import com.rustorder.api.order.service.OrderNotificationService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+@Service
+public class OrderNotificationDispatcherImpl implements OrderNotificationDispatcher {
+
+    private final OrderNotificationService notificationService;
+    private final int capacity;
+    private final BlockingQueue<Runnable> queue;
+
+    // 单个后台线程发送，保证同一订单的通知按发生顺序到达
+    private final Thread worker;
+    private volatile boolean running = true;
+
+    // 有待发送的统计更新；按rustorder.notification.statistics-interval定期检查，每个间隔最多发送一次
+    private final AtomicBoolean statisticsDirty = new AtomicBoolean();
+
+    private final LongAdder dispatched = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder deferred = new LongAdder();
+    private final LongAdder merged = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private volatile String lastError;
+
+    @Autowired
+    public OrderNotificationDispatcherImpl(OrderNotificationService notificationService,
+                                           @Value("${rustorder.notification.queue-capacity:1000}") int capacity) {
+        this.notificationService = notificationService;
+        this.capacity = capacity;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.worker = new Thread(this::drain, "order-notification");
+        this.worker.setDaemon(true);
+    }
+
+    @PostConstruct
+    public void start() {
+        worker.start();
+    }
+
+    /**
+     * 关闭时停止接收并在限定时间内发送完已排队的通知
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        worker.join(TimeUnit.SECONDS.toMillis(5));
+        worker.interrupt();
+    }
+
+    /**
+     * 事务提交后入队；不在事务中发布时立即入队
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNotification(OrderNotificationEvent event) {
+        enqueueOrDrop(() -> send(event));
+        requestStatisticsUpdate();
+    }
+
+    /**
+     * 队列增量由读模型在事务提交后按序号顺序发布，直接入队；
+     * 因队列已满丢弃的增量在客户端表现为序号不连续，由客户端按序号补齐
+     */
+    @EventListener
+    public void onOrderDelta(OrderDeltaEvent event) {
+        enqueueOrDrop(() -> notificationService.notifyOrderDelta(event.getEpoch(), event.getDelta()));
+    }
+
+    @Override
+    public Metrics getMetrics() {
+        return new Metrics(queue.size(), capacity, dispatched.sum(), dropped.sum(), deferred.sum(), merged.sum(),
+                failed.sum(), lastError);
+    }
+
+    private void send(OrderNotificationEvent event) {
+        switch (event.getType()) {
+            case NEW_ORDER -> notificationService.notifyNewOrder(event.getOrders().get(0));
+            case NEW_ORDERS -> notificationService.notifyNewOrders(event.getPickupCode(), event.getOrders());
+            case STATUS_CHANGE -> {
+                Order order = event.getOrders().get(0);
+                notificationService.notifyOrderStatusChange(order, event.getOldStatus(), event.getNewStatus());
+            }
+        }
+    }
+
+    /**
+     * 间隔内有订单变化时发送一次统计更新，期间的多次变化合并为一次
+     */
+    @Scheduled(fixedDelayString = "${rustorder.notification.statistics-interval:1000}")
+    public void flushStatistics() {
+        if (statisticsDirty.getAndSet(false) && !enqueue(notificationService::notifyQueueStatisticsUpdate)) {
+            // 队列已满，留到下一个间隔再发送，不计为丢弃
+            deferred.increment();
+            statisticsDirty.set(true);
+        }
+    }
+
+    private void requestStatisticsUpdate() {
+        if (statisticsDirty.getAndSet(true)) {
+            merged.increment();
+        }
+    }
+
+    /**
+     * 队列已满时丢弃新的通知而不阻塞提交线程
+     */
+    private void enqueueOrDrop(Runnable task) {
+        if (!enqueue(task)) {
+            dropped.increment();
+        }
+    }
+
+    private boolean enqueue(Runnable task) {
+        return running && queue.offer(task);
+    }
+
+    private void drain() {
+        while (running || !queue.isEmpty()) {
+            Runnable task;
+            try {
+                task = queue.poll(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (task == null) {
+                continue;
+            }
+            try {
+                task.run();
+                dispatched.increment();
+            } catch (RuntimeException e) {
+                failed.increment();
+                lastError = e.toString();
+            }
+        }
+    }
+}
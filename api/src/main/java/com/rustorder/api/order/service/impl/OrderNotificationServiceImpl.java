@@ -1,9 +1,10 @@
 package com.rustorder.api.order.service.impl;
 
+import com.rustorder.api.order.dto.OrderDelta;
 import com.rustorder.api.order.model.Order;
 import com.rustorder.api.order.model.OrderStatus;
 import com.rustorder.api.order.service.OrderNotificationService;
-import com.rustorder.api.order.repository.OrderRepository;
+import com.rustorder.api.order.service.OrderQueueService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
@@ -19,7 +20,7 @@ public class OrderNotificationServiceImpl implements OrderNotificationService {
     private SimpMessagingTemplate messagingTemplate;
     
     @Autowired
-    private OrderRepository orderRepository;
+    private OrderQueueService orderQueueService;
     
     @Override
     public void notifyNewOrder(Order order) {
@@ -30,9 +31,18 @@ public class OrderNotificationServiceImpl implements OrderNotificationService {
         
         // 发送给后台管理员
         messagingTemplate.convertAndSend("/topic/admin/orders", message);
+    }
+    
+    @Override
+    public void notifyNewOrders(String pickupCode, List<Order> orders) {
+        Map<String, Object> message = new HashMap<>();
+        message.put("type", "NEW_ORDERS");
+        message.put("pickupCode", pickupCode);
+        message.put("orders", orders);
+        message.put("message", "新订单已创建，取餐码: " + pickupCode + "，共" + orders.size() + "项");
         
-        // 同时更新队列统计
-        notifyQueueStatisticsUpdate();
+        // 发送给后台管理员
+        messagingTemplate.convertAndSend("/topic/admin/orders", message);
     }
     
     @Override
@@ -51,25 +61,30 @@ public class OrderNotificationServiceImpl implements OrderNotificationService {
         // 发送给特定用户
         notifyUserOrderUpdate(order.getUserId(), order, 
                 String.format("您的订单状态已更新为: %s", newStatus.getDisplayName()));
+    }
+    
+    @Override
+    public void notifyOrderDelta(long epoch, OrderDelta delta) {
+        Map<String, Object> message = new HashMap<>();
+        message.put("type", "ORDER_DELTA");
+        message.put("epoch", epoch);
+        message.put("delta", delta);
         
-        // 更新队列统计
-        notifyQueueStatisticsUpdate();
+        // 发送给后台管理员，客户端发现序号不连续时通过/api/admin/orders/deltas补齐
+        messagingTemplate.convertAndSend("/topic/admin/orders", message);
     }
     
     @Override
     public void notifyQueueStatisticsUpdate() {
-        // 直接计算统计信息，避免循环依赖
-        int pendingCount = orderRepository.countByOrderStatus(OrderStatus.PENDING);
-        int preparingCount = orderRepository.countByOrderStatus(OrderStatus.PREPARING);
-        int readyCount = orderRepository.countByOrderStatus(OrderStatus.READY);
-        int totalInQueue = pendingCount + preparingCount + readyCount;
+        // 统计来自队列服务的内存计数，不查询数据库
+        OrderQueueService.QueueStatistics queueStatistics = orderQueueService.getQueueStatistics();
         
         Map<String, Object> statistics = new HashMap<>();
-        statistics.put("pendingCount", pendingCount);
-        statistics.put("preparingCount", preparingCount);
-        statistics.put("readyCount", readyCount);
-        statistics.put("totalInQueue", totalInQueue);
-        statistics.put("averageWaitTime", 0.0); // 简化处理
+        statistics.put("pendingCount", queueStatistics.getPendingCount());
+        statistics.put("preparingCount", queueStatistics.getPreparingCount());
+        statistics.put("readyCount", queueStatistics.getReadyCount());
+        statistics.put("totalInQueue", queueStatistics.getTotalInQueue());
+        statistics.put("averageWaitTime", queueStatistics.getAverageWaitTime());
         
         Map<String, Object> message = new HashMap<>();
         message.put("type", "QUEUE_STATISTICS");
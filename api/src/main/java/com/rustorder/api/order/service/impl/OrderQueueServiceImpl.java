@@ -1,30 +1,97 @@
 package com.rustorder.api.order.service.impl;
 
+import com.rustorder.api.order.event.OrderNotificationEvent;
 import com.rustorder.api.order.model.Order;
 import com.rustorder.api.order.model.OrderStatus;
 import com.rustorder.api.order.repository.OrderRepository;
-import com.rustorder.api.order.service.OrderNotificationService;
+import com.rustorder.api.order.service.OrderCacheEvictor;
 import com.rustorder.api.order.service.OrderQueueService;
+import com.rustorder.api.order.service.PickupCodePool;
+import com.rustorder.api.order.support.ActiveOrderIndex;
+import com.rustorder.api.order.support.QueueStatisticsCounters;
+import com.rustorder.api.order.support.TransactionCallbacks;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
 import java.util.Date;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
 public class OrderQueueServiceImpl implements OrderQueueService {
     
+    // 批量结算时直接用JDBC批量插入：IDENTITY主键下Hibernate无法合并插入语句
+    private static final String INSERT_ORDER_SQL =
+            "INSERT INTO t_order (name, order_type, price, quantity, user_id, pickup_code, order_status, " +
+            "created_at, updated_at, estimated_time, queue_number, notes) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    
     private final OrderRepository orderRepository;
+    private final JdbcTemplate jdbcTemplate;
     private final AtomicInteger queueCounter = new AtomicInteger(1);
     
+    // 活跃订单内存读模型，队列查询不再访问数据库；这里的队列号不按营业日重置，直接作为排队顺序
+    private final ActiveOrderIndex<Order> activeOrders = new ActiveOrderIndex<>(Order::getId,
+            order -> order.getQueueNumber() != null ? order.getQueueNumber().longValue() : null);
+    
+    // 各状态订单数与最近的等待时间，随读模型一起在事务提交后更新，统计不再查询数据库
+    private final QueueStatisticsCounters statistics;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private PickupCodePool pickupCodePool;
+    
     @Autowired
-    private OrderNotificationService notificationService;
+    private OrderCacheEvictor orderCacheEvictor;
     
     @Autowired
-    public OrderQueueServiceImpl(OrderRepository orderRepository) {
+    public OrderQueueServiceImpl(OrderRepository orderRepository, JdbcTemplate jdbcTemplate,
+                                 @Value("${rustorder.queue.wait-samples:50}") int waitSamples) {
         this.orderRepository = orderRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.statistics = new QueueStatisticsCounters(waitSamples);
+    }
+    
+    /**
+     * 启动时从数据库重建活跃订单读模型和状态计数
+     */
+    @PostConstruct
+    public void init() {
+        List<Order> orders = orderRepository.findByOrderStatusInOrderByQueueNumberAsc(OrderStatus.activeStatuses());
+        activeOrders.reset(orders);
+        Map<OrderStatus, Integer> counts = new EnumMap<>(OrderStatus.class);
+        orders.forEach(order -> counts.merge(order.getOrderStatus(), 1, Integer::sum));
+        statistics.reconcile(statistics.version(), counts);
+    }
+    
+    /**
+     * 定期用数据库中的计数校正内存计数，修正其他途径（如直接修改数据库）造成的偏差
+     */
+    @Scheduled(initialDelayString = "${rustorder.queue.statistics-reconcile-interval:60000}",
+               fixedDelayString = "${rustorder.queue.statistics-reconcile-interval:60000}")
+    public void reconcileStatistics() {
+        long version = statistics.version();
+        Map<OrderStatus, Integer> counts = new EnumMap<>(OrderStatus.class);
+        for (Object[] row : orderRepository.countGroupByOrderStatusIn(OrderStatus.activeStatuses())) {
+            counts.put((OrderStatus) row[0], ((Number) row[1]).intValue());
+        }
+        statistics.reconcile(version, counts);
     }
     
     @Override
@@ -39,25 +106,65 @@ public class OrderQueueServiceImpl implements OrderQueueService {
         // 根据商品类型估算制作时间
         order.setEstimatedTime(calculateEstimatedTime(order));
         
-        orderRepository.save(order);
+        Order savedOrder = orderRepository.save(order);
+        syncActiveOrder(savedOrder);
         return queueNumber;
     }
     
+    @Override
+    @Transactional
+    public void addAllToQueue(List<Order> orders) {
+        if (orders.isEmpty()) {
+            return;
+        }
+        Date now = new Date();
+        for (Order order : orders) {
+            order.setQueueNumber(queueCounter.getAndIncrement());
+            order.setOrderStatus(OrderStatus.PENDING);
+            order.setUpdatedAt(now);
+            order.setEstimatedTime(calculateEstimatedTime(order));
+        }
+        
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(con -> con.prepareStatement(INSERT_ORDER_SQL, new String[] {"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        bindOrder(ps, orders.get(i));
+                    }
+                    
+                    @Override
+                    public int getBatchSize() {
+                        return orders.size();
+                    }
+                }, keyHolder);
+        
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < orders.size(); i++) {
+            // 不同驱动返回的主键列名不同（MySQL为GENERATED_KEY），每行只取第一个值
+            Number id = (Number) keys.get(i).values().iterator().next();
+            orders.get(i).setId(id.longValue());
+        }
+        orders.forEach(this::syncActiveOrder);
+    }
+    
     @Override
     public List<Order> getQueuedOrders() {
-        return orderRepository.findByOrderStatusInOrderByQueueNumberAsc(
-            List.of(OrderStatus.PENDING, OrderStatus.CONFIRMED, OrderStatus.PREPARING, OrderStatus.READY)
-        );
+        return activeOrders.values(order -> true);
     }
     
     @Override
     public List<Order> getOrdersByStatus(OrderStatus status) {
-        return orderRepository.findByOrderStatusOrderByQueueNumberAsc(status);
+        // 终态订单不在内存读模型中，仍需查询数据库
+        if (status.isTerminal()) {
+            return orderRepository.findByOrderStatusOrderByQueueNumberAsc(status);
+        }
+        return activeOrders.values(order -> order.getOrderStatus() == status);
     }
     
     @Override
     public Order getNextPendingOrder() {
-        List<Order> pendingOrders = orderRepository.findByOrderStatusOrderByQueueNumberAsc(OrderStatus.PENDING);
+        List<Order> pendingOrders = getOrdersByStatus(OrderStatus.PENDING);
         return pendingOrders.isEmpty() ? null : pendingOrders.get(0);
     }
     
@@ -85,26 +192,85 @@ public class OrderQueueServiceImpl implements OrderQueueService {
         }
         
         Order savedOrder = orderRepository.save(order);
+        syncActiveOrder(savedOrder);
+        
+        // 同一取餐码下的订单全部进入终态后回收取餐码
+        if (newStatus.isTerminal()
+                && orderRepository.countByPickupCodeAndOrderStatusIn(savedOrder.getPickupCode(), OrderStatus.activeStatuses()) == 0) {
+            pickupCodePool.release(savedOrder.getPickupCode());
+        }
         
-        // 发送状态变化通知
-        notificationService.notifyOrderStatusChange(savedOrder, oldStatus, newStatus);
+        // 发送状态变化通知（事务提交后异步发送）
+        eventPublisher.publishEvent(OrderNotificationEvent.statusChange(savedOrder.copy(), oldStatus, newStatus));
         
         return savedOrder;
     }
     
+    @Override
+    public void onOrderUpdated(Order order) {
+        syncActiveOrder(order);
+    }
+    
+    @Override
+    public void onOrderDeleted(Long orderId) {
+        TransactionCallbacks.afterCommit(() -> {
+            Order removed = activeOrders.remove(orderId);
+            if (removed != null) {
+                statistics.move(removed.getOrderStatus(), null);
+            }
+        });
+    }
+    
     @Override
     public QueueStatistics getQueueStatistics() {
-        int pendingCount = orderRepository.countByOrderStatus(OrderStatus.PENDING);
-        int preparingCount = orderRepository.countByOrderStatus(OrderStatus.PREPARING);
-        int readyCount = orderRepository.countByOrderStatus(OrderStatus.READY);
+        int pendingCount = statistics.count(OrderStatus.PENDING);
+        int preparingCount = statistics.count(OrderStatus.PREPARING);
+        int readyCount = statistics.count(OrderStatus.READY);
         int totalInQueue = pendingCount + preparingCount + readyCount;
         
-        // 计算平均等待时间（简化计算）
-        double averageWaitTime = calculateAverageWaitTime();
+        // 最近订单的实际等待时间，启动后还没有订单制作完成时按排队订单的预计制作时间估算
+        double averageWaitTime = statistics.averageWaitMinutes().orElseGet(this::estimatedWaitTime);
+        averageWaitTime = Math.round(averageWaitTime * 10) / 10.0;
         
         return new QueueStatistics(pendingCount, preparingCount, readyCount, totalInQueue, averageWaitTime);
     }
     
+    /**
+     * 事务提交后将订单的当前快照同步到读模型和状态计数，并失效该订单的缓存
+     */
+    private void syncActiveOrder(Order order) {
+        orderCacheEvictor.evictOrder(order);
+        Order snapshot = order.copy();
+        TransactionCallbacks.afterCommit(() -> {
+            OrderStatus status = snapshot.getOrderStatus();
+            boolean active = status != null && !status.isTerminal();
+            Order previous = active ? activeOrders.put(snapshot) : activeOrders.remove(snapshot.getId());
+            OrderStatus previousStatus = previous != null ? previous.getOrderStatus() : null;
+            statistics.move(previousStatus, active ? status : null);
+            
+            // 制作完成时记录从下单到完成的实际等待时间
+            if (status == OrderStatus.READY && previousStatus != OrderStatus.READY
+                    && snapshot.getCreatedAt() != null && snapshot.getUpdatedAt() != null) {
+                statistics.recordWait(snapshot.getUpdatedAt().getTime() - snapshot.getCreatedAt().getTime());
+            }
+        });
+    }
+    
+    private static void bindOrder(PreparedStatement ps, Order order) throws SQLException {
+        ps.setString(1, order.getName());
+        ps.setString(2, order.getOrderType());
+        ps.setObject(3, order.getPrice(), Types.DOUBLE);
+        ps.setObject(4, order.getQuantity(), Types.INTEGER);
+        ps.setString(5, order.getUserId());
+        ps.setString(6, order.getPickupCode());
+        ps.setString(7, order.getOrderStatus().name());
+        ps.setTimestamp(8, order.getCreatedAt() != null ? new Timestamp(order.getCreatedAt().getTime()) : null);
+        ps.setTimestamp(9, new Timestamp(order.getUpdatedAt().getTime()));
+        ps.setObject(10, order.getEstimatedTime(), Types.INTEGER);
+        ps.setObject(11, order.getQueueNumber(), Types.INTEGER);
+        ps.setString(12, order.getNotes());
+    }
+    
     /**
      * 根据商品类型计算预计制作时间
      */
@@ -128,21 +294,12 @@ public class OrderQueueServiceImpl implements OrderQueueService {
     }
     
     /**
-     * 计算平均等待时间
+     * 按排队订单的预计制作时间估算平均等待时间（读模型，不访问数据库）
      */
-    private double calculateAverageWaitTime() {
-        List<Order> activeOrders = orderRepository.findByOrderStatusInOrderByQueueNumberAsc(
-            List.of(OrderStatus.PENDING, OrderStatus.CONFIRMED, OrderStatus.PREPARING)
-        );
-        
-        if (activeOrders.isEmpty()) {
-            return 0.0;
-        }
-        
-        double totalEstimatedTime = activeOrders.stream()
+    private double estimatedWaitTime() {
+        return activeOrders.values(order -> order.getOrderStatus().isInQueue()).stream()
                 .mapToInt(order -> order.getEstimatedTime() != null ? order.getEstimatedTime() : 12)
-                .sum();
-        
-        return totalEstimatedTime / activeOrders.size();
+                .average()
+                .orElse(0.0);
     }
 }
\ No newline at end of file
@@ -2,26 +2,29 @@ package com.rustorder.api.order.service.impl;
 
 import java.util.Date;
 import java.util.List;
-import java.util.Random;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.rustorder.api.order.event.OrderNotificationEvent;
 import com.rustorder.api.order.model.Cart;
 import com.rustorder.api.order.model.Order;
 import com.rustorder.api.order.model.OrderStatus;
 import com.rustorder.api.order.repository.OrderRepository;
 import com.rustorder.api.order.model.Dish;
-import com.rustorder.api.order.repository.DishRepository;
 import com.rustorder.api.order.service.CartService;
+import com.rustorder.api.order.service.DishCatalogService;
 import com.rustorder.api.order.service.MenuService;
-import com.rustorder.api.order.service.OrderNotificationService;
+import com.rustorder.api.order.service.OrderCacheEvictor;
 import com.rustorder.api.order.service.OrderQueueService;
 import com.rustorder.api.order.service.OrderService;
+import com.rustorder.api.order.service.PickupCodePool;
+import com.rustorder.api.order.support.TransactionCallbacks;
 
 @Service
 public class OrderServiceImpl implements OrderService {
@@ -35,13 +38,22 @@ public class OrderServiceImpl implements OrderService {
     private OrderQueueService orderQueueService;
     
     @Autowired
-    private OrderNotificationService notificationService;
+    private ApplicationEventPublisher eventPublisher;
     
     @Autowired
     private MenuService menuService;
     
     @Autowired
-    private DishRepository dishRepository;
+    private DishCatalogService dishCatalogService;
+    
+    @Autowired
+    private PickupCodePool pickupCodePool;
+    
+    @Autowired
+    private OrderCacheEvictor orderCacheEvictor;
+    
+    @Autowired
+    private CacheManager cacheManager;
 
     @Autowired
     public OrderServiceImpl(OrderRepository orderRepository) {
@@ -49,34 +61,58 @@ public class OrderServiceImpl implements OrderService {
     }
 
     @Override
-    @Cacheable(value = "orders")
     public List<Order> getAllOrders() {
         return orderRepository.findAll();
     }
 
+    /**
+     * 缓存中保存订单的快照而不是受管理的实体，每次返回一份副本，调用方的修改不会影响缓存和其他调用方
+     */
     @Override
     public Order getOrderById(Long id) {
-        return orderRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Order not found with id: " + id));
+        Cache cache = cacheManager.getCache(OrderCacheEvictor.ORDER_BY_ID);
+        Order cached = cache != null ? cache.get(id, Order.class) : null;
+        if (cached == null) {
+            cached = orderRepository.findById(id)
+                    .orElseThrow(() -> new RuntimeException("Order not found with id: " + id))
+                    .copy();
+            if (cache != null) {
+                cache.put(id, cached);
+            }
+        }
+        return cached.copy();
     }
 
     @Override
-    @CacheEvict(value = "orders", allEntries = true)
     public Order createOrder(Order order) {
-        return orderRepository.save(order);
+        Order savedOrder = orderRepository.save(order);
+        orderCacheEvictor.evictOrder(savedOrder);
+        return savedOrder;
     }
 
     @Override
-    @CacheEvict(value = "orders", allEntries = true)
+    @Transactional
     public Order updateOrder(Order order) {
-        return orderRepository.save(order);
+        Order savedOrder = orderRepository.save(order);
+        // 读模型同步时一并失效该订单的缓存
+        orderQueueService.onOrderUpdated(savedOrder);
+        return savedOrder;
     }
 
     @Override
-    @CacheEvict(value = "orders", allEntries = true)
+    @Transactional
     public void deleteOrder(Long id) {
-        Order order = getOrderById(id);
+        Order order = orderRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Order not found with id: " + id));
         orderRepository.delete(order);
+        orderQueueService.onOrderDeleted(id);
+        orderCacheEvictor.evictOrder(order);
+        
+        // 同一取餐码下已没有活跃订单时回收取餐码
+        if (order.getOrderStatus() != null && !order.getOrderStatus().isTerminal()
+                && orderRepository.countByPickupCodeAndOrderStatusIn(order.getPickupCode(), OrderStatus.activeStatuses()) == 0) {
+            pickupCodePool.release(order.getPickupCode());
+        }
     }
     
     @Override
@@ -93,9 +129,10 @@ public class OrderServiceImpl implements OrderService {
         }
         
         // 生成取餐码
-        String pickupCode = generatePickupCode();
+        String pickupCode = pickupCodePool.allocate();
         
-        // 将购物车中的商品转换为订单
+        // 在内存中把购物车商品转换为订单
+        Date now = new Date();
         List<Order> orders = cart.getItems().stream().map(item -> {
             Order order = new Order();
             order.setName(item.getName());
@@ -104,21 +141,17 @@ public class OrderServiceImpl implements OrderService {
             order.setQuantity(item.getQuantity());
             order.setUserId(userId);
             order.setPickupCode(pickupCode);
-            order.setCreatedAt(new Date());
-            order.setUpdatedAt(new Date());
+            order.setCreatedAt(now);
+            order.setUpdatedAt(now);
             return order;
         }).collect(Collectors.toList());
         
-        // 保存订单并加入队列
-        orders.forEach(order -> {
-            Order savedOrder = createOrder(order);
-            orderQueueService.addToQueue(savedOrder);
-            // 发送新订单通知
-            notificationService.notifyNewOrder(savedOrder);
-        });
+        // 分配队列号后一次批量插入，不再逐个保存两次
+        orderQueueService.addAllToQueue(orders);
         
-        // 清空购物车
-        cartService.clearCart(userId);
+        // 提交后清空购物车并发送一条汇总通知；回滚时购物车保留，取餐码由取餐码池回收
+        TransactionCallbacks.afterCommit(() -> cartService.clearCart(userId));
+        eventPublisher.publishEvent(OrderNotificationEvent.newOrders(pickupCode, orders));
         
         return pickupCode;
     }
@@ -137,8 +170,8 @@ public class OrderServiceImpl implements OrderService {
             throw new RuntimeException("商品数量必须大于0");
         }
         
-        // 验证菜品是否在菜单中且可用
-        var dish = dishRepository.findByDishNameAndIsAvailable(order.getName(), true)
+        // 验证菜品是否在菜单中且可用（内存目录，不访问数据库）
+        var dish = dishCatalogService.snapshot().getAvailableDishByName(order.getName())
                 .orElseThrow(() -> new RuntimeException("菜品 '" + order.getName() + "' 不在菜单中或暂时不可用"));
         
         // 使用菜品表中的价格和类型
@@ -151,7 +184,7 @@ public class OrderServiceImpl implements OrderService {
         }
         
         // 生成取餐码
-        String pickupCode = generatePickupCode();
+        String pickupCode = pickupCodePool.allocate();
         
         // 设置订单基本信息
         order.setPickupCode(pickupCode);
@@ -162,19 +195,10 @@ public class OrderServiceImpl implements OrderService {
         Order savedOrder = createOrder(order);
         orderQueueService.addToQueue(savedOrder);
         
-        // 发送新订单通知
-        notificationService.notifyNewOrder(savedOrder);
+        // 发送新订单通知（事务提交后异步发送）
+        eventPublisher.publishEvent(OrderNotificationEvent.newOrder(savedOrder));
         
         return pickupCode;
     }
-    
-    /**
-     * 生成6位数字取餐码
-     */
-    private String generatePickupCode() {
-        Random random = new Random();
-        int code = 100000 + random.nextInt(900000); // 生成100000-999999之间的随机数
-        return String.valueOf(code);
-    }
 
 }
\ No newline at end of file
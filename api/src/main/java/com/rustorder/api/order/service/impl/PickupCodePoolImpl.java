@@ -0,0 +1,134 @@
+package com.rustorder.api.order.service.impl;
+
+import com.rustorder.api.order.model.OrderStatus;
+import com.rustorder.api.order.repository.OrderNewRepository;
+import com.rustorder.api.order.repository.OrderRepository;
+import com.rustorder.api.order.service.PickupCodePool;
+import com.rustorder.api.order.support.TransactionCallbacks;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+@Service
+public class PickupCodePoolImpl implements PickupCodePool {
+
+    private static final int CODE_SPACE = 1_000_000;
+    private static final int WORD_COUNT = (CODE_SPACE + 63) / 64;
+
+    private final OrderNewRepository orderNewRepository;
+    private final OrderRepository orderRepository;
+
+    // 每一位对应一个取餐码，置1表示已被活跃订单占用（共约122KB）
+    private final AtomicLongArray words = new AtomicLongArray(WORD_COUNT);
+    private final AtomicInteger usedCount = new AtomicInteger();
+
+    @Autowired
+    public PickupCodePoolImpl(OrderNewRepository orderNewRepository, OrderRepository orderRepository) {
+        this.orderNewRepository = orderNewRepository;
+        this.orderRepository = orderRepository;
+    }
+
+    /**
+     * 启动时根据活跃订单重建占用位图
+     */
+    @PostConstruct
+    public void init() {
+        orderNewRepository.findPickupCodesByOrderStatusIn(OrderStatus.activeStatuses()).forEach(this::markUsed);
+        orderRepository.findPickupCodesByOrderStatusIn(OrderStatus.activeStatuses()).forEach(this::markUsed);
+    }
+
+    @Override
+    public String allocate() {
+        if (usedCount.get() >= CODE_SPACE) {
+            throw new RuntimeException("取餐码已用尽，请稍后再试");
+        }
+        // 从随机位置开始寻找有空位的字，占用率不高时期望O(1)
+        int start = ThreadLocalRandom.current().nextInt(WORD_COUNT);
+        for (int i = 0; i < WORD_COUNT; i++) {
+            int index = (start + i) % WORD_COUNT;
+            int code = tryClaim(index);
+            if (code >= 0) {
+                String pickupCode = format(code);
+                // 事务回滚时订单未落库，归还已分配的取餐码
+                TransactionCallbacks.afterRollback(() -> clear(pickupCode));
+                return pickupCode;
+            }
+        }
+        throw new RuntimeException("取餐码已用尽，请稍后再试");
+    }
+
+    @Override
+    public void release(String pickupCode) {
+        TransactionCallbacks.afterCommit(() -> clear(pickupCode));
+    }
+
+    @Override
+    public int availableCount() {
+        return CODE_SPACE - usedCount.get();
+    }
+
+    /**
+     * 尝试在指定字中占用一个空闲位，返回取餐码，字已满时返回-1
+     */
+    private int tryClaim(int index) {
+        while (true) {
+            long word = words.get(index);
+            if (word == -1L) {
+                return -1;
+            }
+            long bit = Long.lowestOneBit(~word);
+            int code = index * 64 + Long.numberOfTrailingZeros(bit);
+            if (code >= CODE_SPACE) {
+                return -1;
+            }
+            if (words.compareAndSet(index, word, word | bit)) {
+                usedCount.incrementAndGet();
+                return code;
+            }
+        }
+    }
+
+    private void markUsed(String pickupCode) {
+        int code = parse(pickupCode);
+        if (code < 0) {
+            return;
+        }
+        long bit = 1L << (code & 63);
+        long previous = words.getAndAccumulate(code >>> 6, bit, (word, mask) -> word | mask);
+        if ((previous & bit) == 0) {
+            usedCount.incrementAndGet();
+        }
+    }
+
+    private void clear(String pickupCode) {
+        int code = parse(pickupCode);
+        if (code < 0) {
+            return;
+        }
+        long bit = 1L << (code & 63);
+        long previous = words.getAndAccumulate(code >>> 6, bit, (word, mask) -> word & ~mask);
+        if ((previous & bit) != 0) {
+            usedCount.decrementAndGet();
+        }
+    }
+
+    private static String format(int code) {
+        return String.format("%06d", code);
+    }
+
+    private static int parse(String pickupCode) {
+        if (pickupCode == null) {
+            return -1;
+        }
+        try {
+            int code = Integer.parseInt(pickupCode.trim());
+            return code >= 0 && code < CODE_SPACE ? code : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
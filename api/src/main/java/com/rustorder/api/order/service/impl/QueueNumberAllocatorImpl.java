@@ -0,0 +1,137 @@
+package com.rustorder.api.order.service.impl;
+
+import com.rustorder.api.order.model.QueueSequence;
+import com.rustorder.api.order.repository.OrderNewRepository;
+import com.rustorder.api.order.repository.QueueSequenceRepository;
+import com.rustorder.api.order.service.QueueNumberAllocator;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Service
+public class QueueNumberAllocatorImpl implements QueueNumberAllocator {
+
+    private static final String SEQUENCE_NAME = "order_new";
+
+    private final OrderNewRepository orderRepository;
+    private final QueueSequenceRepository sequenceRepository;
+    private final LocalTime resetTime;
+    private final ZoneId zoneId;
+
+    // 高32位为营业日(epochDay)，低32位为该营业日已分配的最大队列号
+    private final AtomicLong state = new AtomicLong();
+    private volatile long persistedState = -1L;
+
+    @Autowired
+    public QueueNumberAllocatorImpl(OrderNewRepository orderRepository,
+                                    QueueSequenceRepository sequenceRepository,
+                                    @Value("${rustorder.queue.reset-time:04:00}") String resetTime,
+                                    @Value("${rustorder.queue.zone:Asia/Shanghai}") String zoneId) {
+        this.orderRepository = orderRepository;
+        this.sequenceRepository = sequenceRepository;
+        this.resetTime = LocalTime.parse(resetTime);
+        this.zoneId = ZoneId.of(zoneId);
+    }
+
+    /**
+     * 启动时从数据库恢复高水位：取持久化的高水位与当日订单最大队列号中的较大者
+     */
+    @PostConstruct
+    public void init() {
+        LocalDate today = currentBusinessDay();
+        int seed = sequenceRepository.findById(SEQUENCE_NAME)
+                .filter(sequence -> today.equals(sequence.getBusinessDate()))
+                .map(QueueSequence::getHighWaterMark)
+                .orElse(0);
+
+        Integer maxToday = orderRepository.findMaxQueueNumberSince(startOf(today));
+        if (maxToday != null) {
+            seed = Math.max(seed, maxToday);
+        }
+
+        state.set(pack(today.toEpochDay(), seed));
+    }
+
+    @Override
+    public int nextQueueNumber() {
+        long today = currentBusinessDay().toEpochDay();
+        while (true) {
+            long current = state.get();
+            // 跨过营业日切换时间后从1重新开始
+            int next = dayOf(current) == today ? numberOf(current) + 1 : 1;
+            if (state.compareAndSet(current, pack(today, next))) {
+                return next;
+            }
+        }
+    }
+
+    @Override
+    public int currentHighWaterMark() {
+        long current = state.get();
+        return dayOf(current) == currentBusinessDay().toEpochDay() ? numberOf(current) : 0;
+    }
+
+    /**
+     * 定期及关闭前持久化高水位，发号路径本身不访问数据库
+     */
+    @Override
+    @PreDestroy
+    @Scheduled(fixedDelayString = "${rustorder.queue.persist-interval:5000}")
+    public synchronized void persistHighWaterMark() {
+        long current = state.get();
+        if (current == persistedState) {
+            return;
+        }
+        QueueSequence sequence = new QueueSequence(
+            SEQUENCE_NAME,
+            LocalDate.ofEpochDay(dayOf(current)),
+            numberOf(current),
+            new Date()
+        );
+        sequenceRepository.save(sequence);
+        persistedState = current;
+    }
+
+    @Override
+    public LocalDate businessDayOf(Date time) {
+        return businessDayOf(ZonedDateTime.ofInstant(time.toInstant(), zoneId));
+    }
+
+    /**
+     * 获取当前营业日，早于切换时间的时段仍属于前一营业日
+     */
+    private LocalDate currentBusinessDay() {
+        return businessDayOf(ZonedDateTime.now(zoneId));
+    }
+
+    private LocalDate businessDayOf(ZonedDateTime time) {
+        LocalDate date = time.toLocalDate();
+        return time.toLocalTime().isBefore(resetTime) ? date.minusDays(1) : date;
+    }
+
+    private Date startOf(LocalDate businessDay) {
+        return Date.from(businessDay.atTime(resetTime).atZone(zoneId).toInstant());
+    }
+
+    private static long pack(long epochDay, int number) {
+        return (epochDay << 32) | (number & 0xFFFFFFFFL);
+    }
+
+    private static long dayOf(long packed) {
+        return packed >>> 32;
+    }
+
+    private static int numberOf(long packed) {
+        return (int) packed;
+    }
+}
@@ -0,0 +1,133 @@
+package com.rustorder.api.order.service.impl;
+
+import com.rustorder.api.order.service.RedisHealthMonitor;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+@Service
+public class RedisHealthMonitorImpl implements RedisHealthMonitor {
+
+    private final RedisTemplate<String, Object> redisTemplate; // 未配置Redis时为null
+    private final int failureThreshold;
+    private final int successThreshold;
+    private final long trialTimeoutMillis;
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicInteger consecutiveSuccesses = new AtomicInteger();
+    // 半开状态下正在进行的试探请求的开始时间，0表示没有；超时未报告时允许下一个请求重新试探
+    private final AtomicLong trialStartedAt = new AtomicLong();
+
+    @Autowired
+    public RedisHealthMonitorImpl(ObjectProvider<RedisTemplate<String, Object>> redisTemplate,
+                                  @Value("${rustorder.redis.failure-threshold:3}") int failureThreshold,
+                                  @Value("${rustorder.redis.success-threshold:2}") int successThreshold,
+                                  @Value("${rustorder.redis.trial-timeout:5000}") long trialTimeoutMillis) {
+        this.redisTemplate = redisTemplate.getIfAvailable();
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.successThreshold = Math.max(1, successThreshold);
+        this.trialTimeoutMillis = Math.max(1, trialTimeoutMillis);
+    }
+
+    /**
+     * 启动时探测一次，Redis不可用时直接进入熔断状态，避免首批请求等待超时
+     */
+    @PostConstruct
+    public void init() {
+        if (redisTemplate != null && !ping()) {
+            state.set(State.OPEN);
+        }
+    }
+
+    @Override
+    public boolean allowRequest() {
+        if (redisTemplate == null) {
+            return false;
+        }
+        State current = state.get();
+        if (current == State.HALF_OPEN) {
+            return tryStartTrial();
+        }
+        return current == State.CLOSED;
+    }
+    
+    /**
+     * 半开状态下通过CAS只让一个请求进入试探
+     */
+    private boolean tryStartTrial() {
+        long now = System.currentTimeMillis();
+        long started = trialStartedAt.get();
+        if (started != 0 && now - started < trialTimeoutMillis) {
+            return false;
+        }
+        return trialStartedAt.compareAndSet(started, now);
+    }
+
+    @Override
+    public void recordSuccess() {
+        State current = state.get();
+        if (current == State.CLOSED) {
+            // 只在有失败计数时写入，避免正常情况下所有请求争用同一个计数器
+            if (consecutiveFailures.get() != 0) {
+                consecutiveFailures.set(0);
+            }
+        } else if (current == State.HALF_OPEN) {
+            if (consecutiveSuccesses.incrementAndGet() >= successThreshold
+                    && state.compareAndSet(State.HALF_OPEN, State.CLOSED)) {
+                consecutiveFailures.set(0);
+            }
+            // 本次试探结束，放行下一个试探请求
+            trialStartedAt.set(0);
+        }
+    }
+
+    @Override
+    public void recordFailure(Exception e) {
+        State current = state.get();
+        if (current == State.CLOSED && consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            state.compareAndSet(State.CLOSED, State.OPEN);
+        } else if (current == State.HALF_OPEN) {
+            state.compareAndSet(State.HALF_OPEN, State.OPEN);
+            trialStartedAt.set(0);
+        }
+    }
+
+    @Override
+    public State getState() {
+        return redisTemplate == null ? State.OPEN : state.get();
+    }
+
+    /**
+     * 熔断期间后台定期探测，探测成功后进入半开状态，逐个放行试探请求
+     */
+    @Scheduled(fixedDelayString = "${rustorder.redis.probe-interval:5000}")
+    public void probe() {
+        if (redisTemplate == null || state.get() != State.OPEN) {
+            return;
+        }
+        if (ping()) {
+            consecutiveSuccesses.set(0);
+            trialStartedAt.set(0);
+            state.compareAndSet(State.OPEN, State.HALF_OPEN);
+        }
+    }
+
+    private boolean ping() {
+        try {
+            // 通过execute执行，连接用完后归还
+            return "PONG".equalsIgnoreCase(redisTemplate.execute((RedisCallback<String>) connection -> connection.ping()));
+        } catch (Exception e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.rustorder.api.order.support;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * 活跃订单内存索引，按(排队顺序, 订单ID)排序
+ * 排队顺序由调用方给出，需跨营业日单调递增（队列号每天从1开始，不能直接用作排序键）
+ * 读操作无锁，按订单ID的写操作互相串行
+ */
+public class ActiveOrderIndex<V> {
+
+    private final ConcurrentSkipListMap<QueueKey, V> entries = new ConcurrentSkipListMap<>();
+    private final Map<Long, QueueKey> keysById = new ConcurrentHashMap<>();
+    private final Function<V, Long> idOf;
+    private final Function<V, Long> queueOrderOf;
+
+    public ActiveOrderIndex(Function<V, Long> idOf, Function<V, Long> queueOrderOf) {
+        this.idOf = idOf;
+        this.queueOrderOf = queueOrderOf;
+    }
+
+    /**
+     * 新增或替换订单，排队顺序变化时同时调整排序位置
+     * @return 被替换的订单，新增时为null
+     */
+    public V put(V value) {
+        Long id = idOf.apply(value);
+        QueueKey key = QueueKey.of(queueOrderOf.apply(value), id);
+        List<V> previous = new ArrayList<>(1);
+        keysById.compute(id, (orderId, previousKey) -> {
+            if (previousKey != null && !previousKey.equals(key)) {
+                previous.add(entries.remove(previousKey));
+            }
+            V replaced = entries.put(key, value);
+            if (replaced != null) {
+                previous.add(replaced);
+            }
+            return key;
+        });
+        return previous.isEmpty() ? null : previous.get(0);
+    }
+
+    /**
+     * 移除订单
+     * @return 被移除的订单，不存在时为null
+     */
+    public V remove(Long id) {
+        List<V> removed = new ArrayList<>(1);
+        keysById.computeIfPresent(id, (orderId, key) -> {
+            removed.add(entries.remove(key));
+            return null;
+        });
+        return removed.isEmpty() ? null : removed.get(0);
+    }
+
+    public Optional<V> get(Long id) {
+        QueueKey key = keysById.get(id);
+        return key == null ? Optional.empty() : Optional.ofNullable(entries.get(key));
+    }
+
+    /**
+     * 按队列顺序返回满足条件的订单
+     */
+    public List<V> values(Predicate<V> filter) {
+        List<V> result = new ArrayList<>();
+        for (V value : entries.values()) {
+            if (filter.test(value)) {
+                result.add(value);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 用给定集合整体替换索引内容（启动时从数据库重建）
+     */
+    public synchronized void reset(Collection<V> values) {
+        keysById.clear();
+        entries.clear();
+        values.forEach(this::put);
+    }
+
+    public int size() {
+        return keysById.size();
+    }
+
+    /**
+     * 排序键：没有排队顺序的订单排在最后，排队顺序相同时按订单ID排序
+     */
+    public record QueueKey(long queueOrder, long id) implements Comparable<QueueKey> {
+
+        static QueueKey of(Long queueOrder, Long id) {
+            return new QueueKey(queueOrder != null ? queueOrder : Long.MAX_VALUE, id);
+        }
+
+        @Override
+        public int compareTo(QueueKey other) {
+            int byOrder = Long.compare(queueOrder, other.queueOrder);
+            return byOrder != 0 ? byOrder : Long.compare(id, other.id);
+        }
+    }
+}
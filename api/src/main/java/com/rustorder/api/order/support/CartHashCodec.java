@@ -0,0 +1,135 @@
+package com.rustorder.api.order.support;
+
+import com.rustorder.api.order.model.Cart;
+import com.rustorder.api.order.model.CartItem;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 购物车在Redis哈希中的存储格式
+ * 每个商品按(orderType, name)占两个字段：q:数量（可直接HINCRBY），m:首次加入时间与单价（HSETNX，保持首次加入的价格）；
+ * 另有@created、@updated两个字段记录购物车的创建和修改时间
+ * 整体存储（cart:用户ID）的旧购物车在首次访问时按encode转换为哈希
+ */
+public final class CartHashCodec {
+
+    public static final String QUANTITY_PREFIX = "q:";
+    public static final String META_PREFIX = "m:";
+    public static final String CREATED_AT = "@created";
+    public static final String UPDATED_AT = "@updated";
+    // 修改脚本发现哈希不存在而旧的整体存储存在时返回的标记，调用方迁移后重试
+    public static final String LEGACY = "@legacy";
+
+    // 商品类型与名称之间的分隔符，使用不会出现在名称中的控制字符
+    private static final char SEPARATOR = '\u001f';
+
+    private CartHashCodec() {
+    }
+
+    /**
+     * 商品字段名（不含前缀）
+     */
+    public static String itemField(String name, String orderType) {
+        return (orderType != null ? orderType : "") + SEPARATOR + (name != null ? name : "");
+    }
+
+    /**
+     * 商品元数据：首次加入时间与单价
+     */
+    public static String meta(long addedAt, Double price) {
+        return addedAt + ":" + (price != null ? price : "");
+    }
+
+    /**
+     * 将购物车转换为哈希字段，字段、值交替排列（可直接作为HSET的参数）
+     * 商品的加入时间从购物车创建时间起逐个递增，保持原有顺序
+     * @param now 购物车没有创建或修改时间时使用的时间
+     */
+    public static List<String> encode(Cart cart, long now) {
+        long createdAt = cart.getCreatedAt() != null ? cart.getCreatedAt().getTime() : now;
+        long updatedAt = cart.getUpdatedAt() != null ? cart.getUpdatedAt().getTime() : now;
+        List<String> flat = new ArrayList<>();
+        flat.add(CREATED_AT);
+        flat.add(String.valueOf(createdAt));
+        flat.add(UPDATED_AT);
+        flat.add(String.valueOf(updatedAt));
+        long addedAt = createdAt;
+        for (CartItem item : cart.getItems()) {
+            if (item.getQuantity() == null || item.getQuantity() <= 0) {
+                continue;
+            }
+            String field = itemField(item.getName(), item.getOrderType());
+            flat.add(QUANTITY_PREFIX + field);
+            flat.add(String.valueOf(item.getQuantity()));
+            flat.add(META_PREFIX + field);
+            flat.add(meta(addedAt++, item.getPrice()));
+        }
+        return flat;
+    }
+
+    /**
+     * 修改脚本的返回值是否为旧存储标记
+     */
+    public static boolean isLegacy(List<?> flat) {
+        return flat != null && flat.size() == 1 && LEGACY.equals(String.valueOf(flat.get(0)));
+    }
+
+    /**
+     * 从HGETALL的结果还原购物车，商品按加入顺序排列
+     * @param flat 脚本返回的字段、值交替排列的列表
+     */
+    public static Cart decode(String userId, List<?> flat) {
+        Map<String, String> hash = new HashMap<>();
+        for (int i = 0; i + 1 < flat.size(); i += 2) {
+            hash.put(String.valueOf(flat.get(i)), String.valueOf(flat.get(i + 1)));
+        }
+        return decode(userId, hash);
+    }
+
+    public static Cart decode(String userId, Map<String, String> hash) {
+        Cart cart = new Cart(userId);
+        if (hash.isEmpty()) {
+            return cart;
+        }
+
+        List<Entry> entries = new ArrayList<>();
+        hash.forEach((field, value) -> {
+            if (!field.startsWith(QUANTITY_PREFIX)) {
+                return;
+            }
+            String item = field.substring(QUANTITY_PREFIX.length());
+            String meta = hash.get(META_PREFIX + item);
+            int separator = item.indexOf(SEPARATOR);
+            int quantity = Integer.parseInt(value);
+            if (meta == null || separator < 0 || quantity <= 0) {
+                return;
+            }
+            int colon = meta.indexOf(':');
+            long addedAt = Long.parseLong(meta.substring(0, colon));
+            String price = meta.substring(colon + 1);
+            CartItem cartItem = new CartItem(item.substring(separator + 1), item.substring(0, separator),
+                    price.isEmpty() ? null : Double.valueOf(price), quantity);
+            entries.add(new Entry(addedAt, item, cartItem));
+        });
+        entries.sort(Comparator.comparingLong(Entry::addedAt).thenComparing(Entry::field));
+        cart.setItems(entries.stream().map(Entry::item).toList());
+
+        String createdAt = hash.get(CREATED_AT);
+        String updatedAt = hash.get(UPDATED_AT);
+        if (createdAt != null) {
+            cart.setCreatedAt(new Date(Long.parseLong(createdAt)));
+        }
+        if (updatedAt != null) {
+            cart.setUpdatedAt(new Date(Long.parseLong(updatedAt)));
+        }
+        return cart;
+    }
+
+    private record Entry(long addedAt, String field, CartItem item) {
+    }
+}
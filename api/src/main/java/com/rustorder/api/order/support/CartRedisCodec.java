@@ -0,0 +1,84 @@
+package com.rustorder.api.order.support;
+
+import com.rustorder.api.order.model.Cart;
+import com.rustorder.api.order.model.CartItem;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.rustorder.api.order.support.RedisValueCodec.readDate;
+import static com.rustorder.api.order.support.RedisValueCodec.readString;
+import static com.rustorder.api.order.support.RedisValueCodec.readVarInt;
+import static com.rustorder.api.order.support.RedisValueCodec.writeDate;
+import static com.rustorder.api.order.support.RedisValueCodec.writeString;
+import static com.rustorder.api.order.support.RedisValueCodec.writeVarInt;
+
+/**
+ * 购物车的二进制格式（版本1）：
+ * userId、createdAt、updatedAt、商品数，之后每个商品为名称、类型、标志位（bit0单价存在，bit1数量存在）、单价、数量
+ * 总价和总数量由Cart根据商品重新计算，不写入
+ */
+public class CartRedisCodec implements RedisValueCodec<Cart> {
+
+    private static final int HAS_PRICE = 1;
+    private static final int HAS_QUANTITY = 1 << 1;
+
+    @Override
+    public byte typeTag() {
+        return 1;
+    }
+
+    @Override
+    public Class<Cart> type() {
+        return Cart.class;
+    }
+
+    @Override
+    public int version() {
+        return 1;
+    }
+
+    @Override
+    public void write(Cart cart, DataOutput out) throws IOException {
+        writeString(out, cart.getUserId());
+        writeDate(out, cart.getCreatedAt());
+        writeDate(out, cart.getUpdatedAt());
+        List<CartItem> items = cart.getItems();
+        writeVarInt(out, items.size());
+        for (CartItem item : items) {
+            writeString(out, item.getName());
+            writeString(out, item.getOrderType());
+            int flags = (item.getPrice() != null ? HAS_PRICE : 0) | (item.getQuantity() != null ? HAS_QUANTITY : 0);
+            out.writeByte(flags);
+            if (item.getPrice() != null) {
+                out.writeDouble(item.getPrice());
+            }
+            if (item.getQuantity() != null) {
+                writeVarInt(out, item.getQuantity());
+            }
+        }
+    }
+
+    @Override
+    public Cart read(DataInput in, int version) throws IOException {
+        Cart cart = new Cart();
+        cart.setUserId(readString(in));
+        cart.setCreatedAt(readDate(in));
+        cart.setUpdatedAt(readDate(in));
+        int size = readVarInt(in);
+        List<CartItem> items = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String name = readString(in);
+            String orderType = readString(in);
+            int flags = in.readUnsignedByte();
+            Double price = (flags & HAS_PRICE) != 0 ? in.readDouble() : null;
+            Integer quantity = (flags & HAS_QUANTITY) != 0 ? readVarInt(in) : null;
+            items.add(new CartItem(name, orderType, price, quantity));
+        }
+        cart.setItems(items);
+        return cart;
+    }
+}
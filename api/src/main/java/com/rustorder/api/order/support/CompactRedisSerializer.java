@@ -0,0 +1,96 @@
+package com.rustorder.api.order.support;
+
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Redis值序列化器：已注册编解码器的类型写为紧凑二进制，其余类型交给JSON序列化器
+ * 二进制格式为：魔数(0xFE) + 类型标记 + 格式版本 + 数据。JSON以可打印字符开头，不会以0xFE开头，
+ * 因此读取时按首字节区分，切换格式前写入的JSON数据仍可读取
+ */
+public class CompactRedisSerializer implements RedisSerializer<Object> {
+
+    static final byte MAGIC = (byte) 0xFE;
+
+    private final Map<Class<?>, RedisValueCodec<?>> codecsByType = new HashMap<>();
+    private final RedisValueCodec<?>[] codecsByTag = new RedisValueCodec<?>[256];
+    private final RedisSerializer<Object> jsonSerializer;
+    private final boolean writeBinary;
+
+    /**
+     * @param jsonSerializer 未注册类型及旧数据使用的序列化器
+     * @param writeBinary 为false时全部写为JSON（仍可读取二进制），用于回退到旧版本前过渡
+     */
+    public CompactRedisSerializer(List<RedisValueCodec<?>> codecs, RedisSerializer<Object> jsonSerializer,
+                                  boolean writeBinary) {
+        for (RedisValueCodec<?> codec : codecs) {
+            int tag = codec.typeTag() & 0xFF;
+            if (codecsByTag[tag] != null) {
+                throw new IllegalArgumentException("类型标记重复: " + tag);
+            }
+            codecsByTag[tag] = codec;
+            codecsByType.put(codec.type(), codec);
+        }
+        this.jsonSerializer = jsonSerializer;
+        this.writeBinary = writeBinary;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        RedisValueCodec<?> codec = value != null && writeBinary ? codecsByType.get(value.getClass()) : null;
+        if (codec == null) {
+            return jsonSerializer.serialize(value);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(MAGIC);
+            out.writeByte(codec.typeTag());
+            out.writeByte(codec.version());
+            write(codec, value, out);
+        } catch (IOException e) {
+            throw new SerializationException("无法序列化" + value.getClass().getSimpleName(), e);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] != MAGIC) {
+            return jsonSerializer.deserialize(bytes);
+        }
+        if (bytes.length < 3) {
+            throw new SerializationException("二进制数据不完整");
+        }
+        RedisValueCodec<?> codec = codecsByTag[bytes[1] & 0xFF];
+        if (codec == null) {
+            throw new SerializationException("未知的类型标记: " + (bytes[1] & 0xFF));
+        }
+        int version = bytes[2] & 0xFF;
+        if (version > codec.version()) {
+            // 由更新版本的程序写入，宁可报错降级也不按旧格式误读
+            throw new SerializationException(codec.type().getSimpleName() + "的格式版本" + version + "高于当前支持的版本" + codec.version());
+        }
+        try {
+            return codec.read(new DataInputStream(new ByteArrayInputStream(bytes, 3, bytes.length - 3)), version);
+        } catch (IOException e) {
+            throw new SerializationException("无法反序列化" + codec.type().getSimpleName(), e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> void write(RedisValueCodec<T> codec, Object value, DataOutputStream out) throws IOException {
+        codec.write((T) value, out);
+    }
+}
@@ -0,0 +1,230 @@
+package com.rustorder.api.order.support;
+
+import com.rustorder.api.order.model.Dish;
+import com.rustorder.api.order.model.Menu;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * 菜品目录快照（不可变）
+ * 构建时预先计算所有排序视图，读取时只做内存查找；菜品变更时构建新版本整体替换
+ * 快照持有菜品的独立副本，不与持久化上下文共享实体；视图的序列化结果按需缓存在快照上
+ */
+public final class DishCatalogSnapshot {
+
+    public static final int NEW_ARRIVALS_SIZE = 5;
+
+    private static final Comparator<Dish> BY_ID = Comparator.comparing(Dish::getId, nullsFirst());
+
+    // 与原有查询的排序保持一致，最后按ID排序保证结果稳定
+    private static final Comparator<Dish> MENU_ORDER = Comparator
+            .comparing(Dish::getDishType, nullsFirst())
+            .thenComparing(Dish::getSortOrder, nullsFirst())
+            .thenComparing(BY_ID);
+    private static final Comparator<Dish> TYPE_ORDER = Comparator
+            .comparing(Dish::getSortOrder, nullsFirst())
+            .thenComparing(Dish::getPrice, nullsFirst())
+            .thenComparing(BY_ID);
+    private static final Comparator<Dish> SORT_ORDER = Comparator
+            .comparing(Dish::getSortOrder, nullsFirst())
+            .thenComparing(BY_ID);
+    private static final Comparator<Dish> NEWEST_ORDER = Comparator
+            .comparing(Dish::getCreatedAt, nullsLastDesc())
+            .thenComparing(BY_ID);
+
+    private final long version;
+
+    private final List<Dish> allDishes;                        // 全部菜品（管理端），按ID排序
+    private final List<Dish> allBySortOrder;                   // 全部菜品，按排序号排序
+    private final Map<Long, Dish> dishesById;
+    private final Map<String, Dish> dishesByName;              // 全部菜品按名称索引，用于订单项反查菜品
+    private final List<Dish> availableDishes;                  // 可用菜品，按类型、排序号排序
+    private final List<Dish> availableBySortOrder;             // 可用菜品，按排序号排序
+    private final Map<String, List<Dish>> availableByType;     // 可用菜品按类型分组，按排序号、价格排序
+    private final Map<String, Dish> availableByName;
+    private final List<Dish> newArrivals;                      // 最近创建的可用菜品
+
+    private final List<Menu> availableMenus;
+    private final List<Menu> allMenus;
+    private final Map<String, List<Menu>> availableMenusByType;
+    private final Map<String, Menu> availableMenusByName;
+
+    // 按视图缓存的预渲染结果，首次访问时生成，随快照版本一起失效
+    private final RenderedViews renderedViews = new RenderedViews();
+
+    private DishCatalogSnapshot(long version, Collection<Dish> dishes) {
+        this.version = version;
+
+        List<Dish> copies = dishes.stream().map(DishCatalogSnapshot::copyOf).sorted(BY_ID).collect(Collectors.toList());
+        List<Dish> available = copies.stream().filter(dish -> Boolean.TRUE.equals(dish.getIsAvailable())).collect(Collectors.toList());
+
+        this.allDishes = Collections.unmodifiableList(copies);
+        this.allBySortOrder = sorted(copies, SORT_ORDER);
+        this.dishesById = Collections.unmodifiableMap(copies.stream()
+                .collect(Collectors.toMap(Dish::getId, Function.identity(), (a, b) -> b, LinkedHashMap::new)));
+        this.dishesByName = Collections.unmodifiableMap(copies.stream()
+                .collect(Collectors.toMap(Dish::getDishName, Function.identity(), (a, b) -> a)));
+        this.availableDishes = sorted(available, MENU_ORDER);
+        this.availableBySortOrder = sorted(available, SORT_ORDER);
+        this.availableByType = groupByType(available, TYPE_ORDER);
+        this.availableByName = Collections.unmodifiableMap(available.stream()
+                .collect(Collectors.toMap(Dish::getDishName, Function.identity(), (a, b) -> a)));
+        this.newArrivals = sorted(available, NEWEST_ORDER).stream().limit(NEW_ARRIVALS_SIZE).toList();
+
+        this.availableMenus = toMenus(availableDishes);
+        this.allMenus = toMenus(allDishes);
+        this.availableMenusByType = Collections.unmodifiableMap(availableByType.entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, entry -> toMenus(entry.getValue()))));
+        this.availableMenusByName = Collections.unmodifiableMap(availableMenus.stream()
+                .collect(Collectors.toMap(Menu::getDishName, Function.identity(), (a, b) -> a)));
+    }
+
+    public static DishCatalogSnapshot of(long version, Collection<Dish> dishes) {
+        return new DishCatalogSnapshot(version, dishes);
+    }
+
+    /**
+     * 新增或替换若干菜品后的新版本
+     */
+    public DishCatalogSnapshot withDishes(long newVersion, Collection<Dish> changed) {
+        Map<Long, Dish> merged = new LinkedHashMap<>(dishesById);
+        changed.forEach(dish -> merged.put(dish.getId(), dish));
+        return new DishCatalogSnapshot(newVersion, merged.values());
+    }
+
+    /**
+     * 删除菜品后的新版本
+     */
+    public DishCatalogSnapshot withoutDish(long newVersion, Long dishId) {
+        Map<Long, Dish> remaining = new LinkedHashMap<>(dishesById);
+        remaining.remove(dishId);
+        return new DishCatalogSnapshot(newVersion, remaining.values());
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * 获取视图在当前版本下的渲染结果，同一版本内只渲染一次
+     * @param viewKey  视图标识（包含查询参数）
+     * @param renderer 渲染函数
+     */
+    public <T> T rendered(String viewKey, Supplier<T> renderer) {
+        return renderedViews.rendered(viewKey, renderer);
+    }
+
+    public List<Dish> getAllDishes() {
+        return allDishes;
+    }
+
+    public List<Dish> getAllDishesBySortOrder() {
+        return allBySortOrder;
+    }
+
+    public Optional<Dish> getDish(Long id) {
+        return Optional.ofNullable(dishesById.get(id));
+    }
+
+    public Optional<Dish> getDishByName(String dishName) {
+        return Optional.ofNullable(dishesByName.get(dishName));
+    }
+
+    public List<Dish> getAvailableDishes() {
+        return availableDishes;
+    }
+
+    public List<Dish> getAvailableDishesBySortOrder() {
+        return availableBySortOrder;
+    }
+
+    public List<Dish> getAvailableDishesByType(String dishType) {
+        return availableByType.getOrDefault(dishType, List.of());
+    }
+
+    public Optional<Dish> getAvailableDishByName(String dishName) {
+        return Optional.ofNullable(availableByName.get(dishName));
+    }
+
+    public List<Dish> getNewArrivals() {
+        return newArrivals;
+    }
+
+    public List<Menu> getAvailableMenus() {
+        return availableMenus;
+    }
+
+    public List<Menu> getAllMenus() {
+        return allMenus;
+    }
+
+    public List<Menu> getAvailableMenusByType(String dishType) {
+        return availableMenusByType.getOrDefault(dishType, List.of());
+    }
+
+    public Optional<Menu> getAvailableMenuByName(String dishName) {
+        return Optional.ofNullable(availableMenusByName.get(dishName));
+    }
+
+    private static List<Dish> sorted(List<Dish> dishes, Comparator<Dish> order) {
+        List<Dish> result = new ArrayList<>(dishes);
+        result.sort(order);
+        return Collections.unmodifiableList(result);
+    }
+
+    private static Map<String, List<Dish>> groupByType(List<Dish> dishes, Comparator<Dish> order) {
+        Map<String, List<Dish>> grouped = dishes.stream()
+                .filter(dish -> dish.getDishType() != null)
+                .collect(Collectors.groupingBy(Dish::getDishType));
+        Map<String, List<Dish>> result = new LinkedHashMap<>();
+        grouped.forEach((type, list) -> result.put(type, sorted(list, order)));
+        return Collections.unmodifiableMap(result);
+    }
+
+    private static List<Menu> toMenus(List<Dish> dishes) {
+        return dishes.stream().map(DishCatalogSnapshot::toMenu).toList();
+    }
+
+    private static Menu toMenu(Dish dish) {
+        Menu menu = new Menu();
+        menu.setId(dish.getId());
+        menu.setDishName(dish.getDishName());
+        menu.setDishType(dish.getDishType());
+        menu.setPrice(dish.getPrice());
+        menu.setDescription(dish.getDescription());
+        menu.setImageUrl(dish.getImageUrl());
+        menu.setIsAvailable(dish.getIsAvailable());
+        menu.setEstimatedTime(dish.getEstimatedTime());
+        menu.setCreatedAt(dish.getCreatedAt());
+        menu.setUpdatedAt(dish.getUpdatedAt());
+        return menu;
+    }
+
+    /**
+     * 复制菜品，用于在快照之外返回修改后的菜品
+     */
+    public static Dish copyOf(Dish dish) {
+        return new Dish(dish.getId(), dish.getDishName(), dish.getDishType(), dish.getPrice(), dish.getDescription(),
+                dish.getImageUrl(), dish.getIsAvailable(), dish.getEstimatedTime(), dish.getSortOrder(),
+                dish.getSalesCount(), dish.getRating(), dish.getRatingCount(), dish.getCreatedAt(), dish.getUpdatedAt());
+    }
+
+    private static <T extends Comparable<? super T>> Comparator<T> nullsFirst() {
+        return Comparator.nullsFirst(Comparator.<T>naturalOrder());
+    }
+
+    // 倒序时空值排在最后，与MySQL的ORDER BY ... DESC一致
+    private static <T extends Comparable<? super T>> Comparator<T> nullsLastDesc() {
+        return Comparator.nullsLast(Comparator.<T>reverseOrder());
+    }
+}
@@ -0,0 +1,130 @@
+package com.rustorder.api.order.support;
+
+import com.rustorder.api.order.model.Dish;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * 菜品排名索引
+ * 只收录可用菜品，按给定顺序保存在跳表中；单个菜品变化时O(log n)调整位置，
+ * 取前k名只需顺序遍历k个元素，上下架直接增删，不需要整体重建
+ * 放入的菜品实例不能再被修改，否则会破坏跳表顺序
+ */
+public class DishRankIndex {
+
+    private static final Comparator<Dish> BY_ID = Comparator.comparing(Dish::getId);
+
+    /**
+     * 热门顺序：销量、评分、创建时间倒序（与原有查询一致，空值排在最后），最后按ID保证唯一
+     */
+    public static final Comparator<Dish> POPULAR_ORDER = Comparator
+            .comparing(Dish::getSalesCount, nullsLastDesc())
+            .thenComparing(Dish::getRating, nullsLastDesc())
+            .thenComparing(Dish::getCreatedAt, nullsLastDesc())
+            .thenComparing(BY_ID);
+
+    /**
+     * 评分顺序：评分、销量倒序，最后按ID保证唯一
+     */
+    public static final Comparator<Dish> TOP_RATED_ORDER = Comparator
+            .comparing(Dish::getRating, nullsLastDesc())
+            .thenComparing(Dish::getSalesCount, nullsLastDesc())
+            .thenComparing(BY_ID);
+
+    private final ConcurrentSkipListSet<Dish> ranked;
+    // 菜品ID -> 当前在跳表中的实例，用于定位旧位置
+    private final Map<Long, Dish> entries = new ConcurrentHashMap<>();
+
+    /**
+     * @param order 排名顺序，必须以ID作为最终排序条件保证元素唯一
+     */
+    public DishRankIndex(Comparator<Dish> order) {
+        this.ranked = new ConcurrentSkipListSet<>(order);
+    }
+
+    /**
+     * 新增或更新菜品，下架的菜品会被移出索引
+     */
+    public synchronized void put(Dish dish) {
+        Dish previous = entries.remove(dish.getId());
+        if (previous != null) {
+            ranked.remove(previous);
+        }
+        if (Boolean.TRUE.equals(dish.getIsAvailable())) {
+            entries.put(dish.getId(), dish);
+            ranked.add(dish);
+        }
+    }
+
+    public synchronized void remove(Long dishId) {
+        Dish previous = entries.remove(dishId);
+        if (previous != null) {
+            ranked.remove(previous);
+        }
+    }
+
+    public synchronized void reset(Collection<Dish> dishes) {
+        ranked.clear();
+        entries.clear();
+        dishes.forEach(this::put);
+    }
+
+    /**
+     * 排名前limit的菜品，O(limit)
+     */
+    public List<Dish> top(int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        List<Dish> result = new ArrayList<>(Math.min(limit, entries.size()));
+        Iterator<Dish> iterator = ranked.iterator();
+        while (result.size() < limit && iterator.hasNext()) {
+            result.add(iterator.next());
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * 排在bound之前的前limit个菜品，只遍历范围内的元素，O(log n + limit)
+     * @param bound 范围上界（不包含），可以是不在索引中的探针
+     */
+    public List<Dish> topBefore(Dish bound, int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        List<Dish> result = new ArrayList<>(Math.min(limit, entries.size()));
+        Iterator<Dish> iterator = ranked.headSet(bound).iterator();
+        while (result.size() < limit && iterator.hasNext()) {
+            result.add(iterator.next());
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * 评分顺序下的范围探针：排在所有评分不低于minRating的菜品之后、所有评分更低的菜品之前
+     */
+    public static Dish minRatingBound(double minRating) {
+        Dish bound = new Dish();
+        bound.setId(Long.MAX_VALUE);
+        bound.setRating(minRating);
+        bound.setSalesCount(null); // 销量倒序时空值排在最后
+        return bound;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    // 倒序时空值排在最后，与MySQL的ORDER BY ... DESC一致
+    static <T extends Comparable<? super T>> Comparator<T> nullsLastDesc() {
+        return Comparator.nullsLast(Comparator.<T>reverseOrder());
+    }
+}
@@ -0,0 +1,48 @@
+package com.rustorder.api.order.support;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * NDJSON流式响应：每个元素序列化为一行JSON，边读边写，不在内存中缓存整个结果
+ */
+public final class NdjsonStreams {
+
+    // 每写出若干行刷新一次，让客户端尽早收到数据
+    private static final int FLUSH_INTERVAL = 100;
+
+    private NdjsonStreams() {
+    }
+
+    /**
+     * @param objectMapper 序列化使用的ObjectMapper
+     * @param producer     数据生产者，按顺序将元素交给传入的回调
+     */
+    public static <T> StreamingResponseBody of(ObjectMapper objectMapper, Consumer<Consumer<T>> producer) {
+        ObjectWriter writer = objectMapper.writer();
+        return out -> {
+            int[] written = {0};
+            try {
+                producer.accept(element -> {
+                    try {
+                        out.write(writer.writeValueAsBytes(element));
+                        out.write('\n');
+                        if (++written[0] % FLUSH_INTERVAL == 0) {
+                            out.flush();
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            out.flush();
+        };
+    }
+}
@@ -0,0 +1,51 @@
+package com.rustorder.api.order.support;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * 订单列表键集分页游标，记录上一页最后一条订单的(创建时间, ID)
+ * 对外编码为URL安全的Base64字符串，客户端只需原样传回
+ * 创建时间为空的订单排在最后，游标中以"-"表示
+ */
+public record OrderCursor(Date createdAt, long id) {
+
+    private static final String NO_CREATED_AT = "-";
+
+    public String encode() {
+        String raw;
+        if (createdAt == null) {
+            raw = NO_CREATED_AT + ":" + NO_CREATED_AT + ":" + id;
+        } else {
+            Instant instant = createdAt.toInstant();
+            raw = instant.getEpochSecond() + ":" + instant.getNano() + ":" + id;
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * 解析游标，格式不正确时抛出IllegalArgumentException
+     */
+    public static OrderCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+            String[] parts = raw.split(":");
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("无效的分页游标");
+            }
+            long id = Long.parseLong(parts[2]);
+            if (NO_CREATED_AT.equals(parts[0]) && NO_CREATED_AT.equals(parts[1])) {
+                return new OrderCursor(null, id);
+            }
+            // 使用Timestamp保留微秒精度，与datetime(6)列精确比较
+            Instant instant = Instant.ofEpochSecond(Long.parseLong(parts[0]), Long.parseLong(parts[1]));
+            return new OrderCursor(Timestamp.from(instant), id);
+        } catch (IllegalArgumentException | DateTimeException e) {
+            throw new IllegalArgumentException("无效的分页游标", e);
+        }
+    }
+}
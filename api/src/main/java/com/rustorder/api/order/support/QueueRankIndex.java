@@ -0,0 +1,128 @@
+package com.rustorder.api.order.support;
+
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * 队列号排名索引（树状数组）
+ * 统计排在某个队列号之前的订单数，增删和查询均为O(log n)
+ * 写操作互斥，读操作使用乐观读，不阻塞写入
+ */
+public class QueueRankIndex {
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    private final StampedLock lock = new StampedLock();
+    private long[] counts = new long[INITIAL_CAPACITY + 1]; // 每个队列号上的订单数，下标从1开始
+    private long[] tree = new long[INITIAL_CAPACITY + 1];
+    private long total;
+
+    /**
+     * 记录一个队列号
+     */
+    public void add(int queueNumber) {
+        update(queueNumber, 1);
+    }
+
+    /**
+     * 移除一个队列号
+     */
+    public void remove(int queueNumber) {
+        update(queueNumber, -1);
+    }
+
+    /**
+     * 队列号严格小于给定值的订单数
+     */
+    public long countBefore(int queueNumber) {
+        long stamp = lock.tryOptimisticRead();
+        long result = prefixSum(queueNumber - 1);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                result = prefixSum(queueNumber - 1);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 索引中的订单总数
+     */
+    public long size() {
+        long stamp = lock.tryOptimisticRead();
+        long result = total;
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                result = total;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 清空索引
+     */
+    public void clear() {
+        long stamp = lock.writeLock();
+        try {
+            counts = new long[INITIAL_CAPACITY + 1];
+            tree = new long[INITIAL_CAPACITY + 1];
+            total = 0;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private void update(int queueNumber, int delta) {
+        if (queueNumber <= 0) {
+            return;
+        }
+        long stamp = lock.writeLock();
+        try {
+            if (queueNumber >= tree.length) {
+                grow(queueNumber);
+            }
+            counts[queueNumber] += delta;
+            total += delta;
+            long[] t = tree;
+            for (int i = queueNumber; i < t.length; i += i & -i) {
+                t[i] += delta;
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * 扩容后根据计数重建树状数组，O(n)且均摊到多次插入
+     */
+    private void grow(int queueNumber) {
+        int capacity = Math.max((tree.length - 1) * 2, queueNumber);
+        long[] newCounts = new long[capacity + 1];
+        System.arraycopy(counts, 0, newCounts, 0, counts.length);
+        long[] newTree = new long[capacity + 1];
+        for (int i = 1; i <= capacity; i++) {
+            newTree[i] += newCounts[i];
+            int parent = i + (i & -i);
+            if (parent <= capacity) {
+                newTree[parent] += newTree[i];
+            }
+        }
+        counts = newCounts;
+        tree = newTree;
+    }
+
+    private long prefixSum(int queueNumber) {
+        long[] t = tree;
+        long sum = 0;
+        for (int i = Math.min(queueNumber, t.length - 1); i > 0; i -= i & -i) {
+            sum += t[i];
+        }
+        return sum;
+    }
+}
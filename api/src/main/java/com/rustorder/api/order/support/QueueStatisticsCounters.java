@@ -0,0 +1,99 @@
+package com.rustorder.api.order.support;
+
+import com.rustorder.api.order.model.OrderStatus;
+
+import java.util.Map;
+import java.util.OptionalDouble;
+
+/**
+ * 队列统计的内存计数
+ * 各状态的订单数随状态变化增减，定期与数据库对账；另记录最近若干个订单从下单到制作完成的实际等待时间
+ * 修改频率与订单状态变化相同，直接用同步方法保护
+ */
+public class QueueStatisticsCounters {
+
+    private final int[] counts = new int[OrderStatus.values().length];
+    private long version;
+
+    // 最近的等待时间（毫秒），环形覆盖最早的样本
+    private final long[] waits;
+    private int waitCount;
+    private int nextWait;
+    private long waitSum;
+
+    /**
+     * @param waitSamples 计算平均等待时间使用的最近样本数
+     */
+    public QueueStatisticsCounters(int waitSamples) {
+        this.waits = new long[Math.max(1, waitSamples)];
+    }
+
+    /**
+     * 订单从一个状态变为另一个状态；新增时from为null，移除时to为null
+     */
+    public synchronized void move(OrderStatus from, OrderStatus to) {
+        if (from == to) {
+            return;
+        }
+        if (from != null) {
+            counts[from.ordinal()]--;
+        }
+        if (to != null) {
+            counts[to.ordinal()]++;
+        }
+        version++;
+    }
+
+    public synchronized int count(OrderStatus status) {
+        return Math.max(0, counts[status.ordinal()]);
+    }
+
+    /**
+     * 计数的修改次数，对账前读取，用于判断查询期间是否有状态变化
+     */
+    public synchronized long version() {
+        return version;
+    }
+
+    /**
+     * 用数据库中的计数替换内存计数，未出现的状态按0处理
+     * 读取version之后又有状态变化时放弃本次对账（查询结果可能已过时），由下一次对账修正
+     * @return 是否应用了数据库计数
+     */
+    public synchronized boolean reconcile(long expectedVersion, Map<OrderStatus, Integer> actual) {
+        if (version != expectedVersion) {
+            return false;
+        }
+        for (OrderStatus status : OrderStatus.values()) {
+            counts[status.ordinal()] = actual.getOrDefault(status, 0);
+        }
+        return true;
+    }
+
+    /**
+     * 记录一个订单从下单到制作完成的等待时间
+     */
+    public synchronized void recordWait(long millis) {
+        if (millis < 0) {
+            return;
+        }
+        if (waitCount == waits.length) {
+            waitSum -= waits[nextWait];
+        } else {
+            waitCount++;
+        }
+        waits[nextWait] = millis;
+        waitSum += millis;
+        nextWait = (nextWait + 1) % waits.length;
+    }
+
+    /**
+     * 最近样本的平均等待时间（分钟），还没有样本时为空
+     */
+    public synchronized OptionalDouble averageWaitMinutes() {
+        if (waitCount == 0) {
+            return OptionalDouble.empty();
+        }
+        return OptionalDouble.of(waitSum / (double) waitCount / 60_000.0);
+    }
+}
@@ -0,0 +1,103 @@
+package com.rustorder.api.order.support;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个菜品的评分累加器
+ * 评分次数与分数总和（以0.01分为单位）打包在同一个LongAdder中：高位计次数，低40位累加分数，
+ * 一次add同时记录两者，并发评分分散到不同的cell上互不竞争
+ * 累加值只增不减，已落库的部分用水位线标记，与落库后的平均分、次数一起原子替换，
+ * 读取时用已落库的值加上水位线之后的增量，得到精确的当前平均分
+ * 增量总是按两个累加位置的差值计算，累加值溢出回绕不影响结果
+ */
+public class RatingAccumulator {
+
+    private static final int SUM_BITS = 40;
+    private static final long SUM_MASK = (1L << SUM_BITS) - 1;
+    private static final long ONE_RATING = 1L << SUM_BITS;
+
+    private final LongAdder recorded = new LongAdder();
+    private volatile Settled settled;
+
+    public RatingAccumulator(Double rating, Integer ratingCount) {
+        this.settled = new Settled(rating != null ? rating : 0.0, ratingCount != null ? ratingCount : 0, 0L);
+    }
+
+    /**
+     * 记录一次评分（0-5分）
+     */
+    public void record(double rating) {
+        recorded.add(ONE_RATING + Math.round(rating * 100));
+    }
+
+    /**
+     * 当前累加位置，作为一次落库的截止点
+     */
+    public long mark() {
+        return recorded.sum();
+    }
+
+    /**
+     * 水位线到截止点之间尚未落库的增量
+     */
+    public Pending pendingUntil(long mark) {
+        return between(settled.watermark(), mark);
+    }
+
+    /**
+     * 截止点之前的增量已落库，记录落库后的平均分和次数
+     */
+    public void settle(Double rating, Integer ratingCount, long mark) {
+        settled = new Settled(rating != null ? rating : 0.0, ratingCount != null ? ratingCount : 0, mark);
+    }
+
+    /**
+     * 数据库中的评分被直接修改（如管理端编辑）时替换已落库的值，未落库的增量保留
+     */
+    public void rebase(Double rating, Integer ratingCount) {
+        settle(rating, ratingCount, settled.watermark());
+    }
+
+    /**
+     * 已落库的平均分和次数
+     */
+    public Settled settled() {
+        return settled;
+    }
+
+    /**
+     * 包含未落库增量的当前平均分（保留两位小数）和次数
+     */
+    public Settled current() {
+        Settled base = settled;
+        long mark = recorded.sum();
+        Pending pending = between(base.watermark(), mark);
+        if (pending.count() == 0) {
+            return base;
+        }
+        int count = base.ratingCount() + pending.count();
+        double average = (base.rating() * base.ratingCount() + pending.sum()) / count;
+        return new Settled(Math.round(average * 100.0) / 100.0, count, mark);
+    }
+
+    private static Pending between(long from, long to) {
+        long delta = to - from;
+        return new Pending((int) (delta >>> SUM_BITS), delta & SUM_MASK);
+    }
+
+    /**
+     * @param watermark 已落库部分对应的累加位置
+     */
+    public record Settled(double rating, int ratingCount, long watermark) {
+    }
+
+    /**
+     * @param sumHundredths 分数总和，以0.01分为单位
+     */
+    public record Pending(int count, long sumHundredths) {
+
+        public double sum() {
+            return sumHundredths / 100.0;
+        }
+    }
+}
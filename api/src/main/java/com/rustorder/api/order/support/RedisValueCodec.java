@@ -0,0 +1,91 @@
+package com.rustorder.api.order.support;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+
+/**
+ * 单个类型在Redis中的紧凑二进制格式，注册到CompactRedisSerializer后生效
+ * 每个类型占用一个固定的类型标记；格式变化时提高版本号，read需要继续支持所有旧版本
+ * 以下静态方法供各实现共用：变长整数，字符串和日期用0表示null
+ */
+public interface RedisValueCodec<T> {
+
+    /**
+     * 类型标记，写入后不能再更改或复用
+     */
+    byte typeTag();
+
+    Class<T> type();
+
+    /**
+     * 当前写入的格式版本（从1开始）
+     */
+    int version();
+
+    void write(T value, DataOutput out) throws IOException;
+
+    /**
+     * @param version 数据写入时的格式版本，不大于version()
+     */
+    T read(DataInput in, int version) throws IOException;
+
+    static void writeVarInt(DataOutput out, int value) throws IOException {
+        writeVarLong(out, value & 0xFFFFFFFFL);
+    }
+
+    static int readVarInt(DataInput in) throws IOException {
+        return (int) readVarLong(in);
+    }
+
+    static void writeVarLong(DataOutput out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    static long readVarLong(DataInput in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("变长整数格式错误");
+    }
+
+    static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            writeVarInt(out, 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length + 1);
+        out.write(bytes);
+    }
+
+    static String readString(DataInput in) throws IOException {
+        int length = readVarInt(in);
+        if (length == 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length - 1];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static void writeDate(DataOutput out, Date value) throws IOException {
+        writeVarLong(out, value != null ? value.getTime() + 1 : 0);
+    }
+
+    static Date readDate(DataInput in) throws IOException {
+        long value = readVarLong(in);
+        return value != 0 ? new Date(value - 1) : null;
+    }
+}
@@ -0,0 +1,84 @@
+package com.rustorder.api.order.support;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 预渲染的响应体：JSON字节、gzip压缩后的字节及对应的强ETag
+ * ETag由内容摘要计算，内容不变时跨版本保持不变
+ * 摘要和gzip字节在第一次需要时计算并保留，没有客户端接受gzip时不做压缩
+ */
+public final class RenderedPayload {
+
+    private final byte[] json;
+    private volatile String digest;
+    private volatile byte[] gzip;
+
+    private RenderedPayload(byte[] json) {
+        this.json = json;
+    }
+
+    public static RenderedPayload of(byte[] json) {
+        return new RenderedPayload(json);
+    }
+
+    public byte[] json() {
+        return json;
+    }
+
+    public byte[] gzip() {
+        byte[] compressed = gzip;
+        if (compressed == null) {
+            synchronized (this) {
+                compressed = gzip;
+                if (compressed == null) {
+                    compressed = gzip(json);
+                    gzip = compressed;
+                }
+            }
+        }
+        return compressed;
+    }
+
+    public String etag() {
+        return "\"" + digest() + "\"";
+    }
+
+    public String gzipEtag() {
+        return "\"" + digest() + "-gzip\"";
+    }
+
+    // 并发时可能重复计算，结果相同，不需要加锁
+    private String digest() {
+        String value = digest;
+        if (value == null) {
+            value = digest(json);
+            digest = value;
+        }
+        return value;
+    }
+
+    private static String digest(byte[] content) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(content);
+            return HexFormat.of().formatHex(hash, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] gzip(byte[] content) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, content.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(content);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,37 @@
+package com.rustorder.api.order.support;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * 一个版本内按视图缓存的渲染结果，首次访问时生成
+ * 缓存的视图数有上限，防止任意参数组合撑大内存，超出后的视图每次重新渲染
+ */
+public class RenderedViews {
+
+    private static final int MAX_VIEWS = 256;
+
+    private final Map<String, Object> views = new ConcurrentHashMap<>();
+
+    /**
+     * 获取视图的渲染结果，同一实例内只渲染一次
+     * @param viewKey  视图标识（包含查询参数）
+     * @param renderer 渲染函数
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T rendered(String viewKey, Supplier<T> renderer) {
+        Object cached = views.get(viewKey);
+        if (cached != null) {
+            return (T) cached;
+        }
+        T result = renderer.get();
+        if (views.size() < MAX_VIEWS) {
+            Object existing = views.putIfAbsent(viewKey, result);
+            if (existing != null) {
+                return (T) existing;
+            }
+        }
+        return result;
+    }
+}
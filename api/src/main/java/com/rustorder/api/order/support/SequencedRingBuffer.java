@@ -0,0 +1,52 @@
+package com.rustorder.api.order.support;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.LongFunction;
+
+/**
+ * 带序号的定长环形缓冲区
+ * 每次追加分配一个单调递增的序号（从1开始），只保留最近capacity条，供客户端按序号补齐错过的记录
+ */
+public class SequencedRingBuffer<T> {
+
+    private final Object[] slots;
+    private long lastSequence;
+
+    public SequencedRingBuffer(int capacity) {
+        this.slots = new Object[Math.max(1, capacity)];
+    }
+
+    /**
+     * 分配下一个序号并追加记录
+     * @param create 根据序号创建记录
+     */
+    public synchronized T append(LongFunction<T> create) {
+        long sequence = ++lastSequence;
+        T item = create.apply(sequence);
+        slots[(int) (sequence % slots.length)] = item;
+        return item;
+    }
+
+    /**
+     * 序号之后的全部记录（按序号排列）
+     * @return 序号超出当前范围或之后的记录已被覆盖时为空，调用方需要重新获取完整数据
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized Optional<List<T>> since(long sequence) {
+        long oldest = Math.max(1, lastSequence - slots.length + 1);
+        if (sequence > lastSequence || sequence + 1 < oldest) {
+            return Optional.empty();
+        }
+        List<T> items = new ArrayList<>((int) (lastSequence - sequence));
+        for (long next = sequence + 1; next <= lastSequence; next++) {
+            items.add((T) slots[(int) (next % slots.length)]);
+        }
+        return Optional.of(items);
+    }
+
+    public synchronized long lastSequence() {
+        return lastSequence;
+    }
+}
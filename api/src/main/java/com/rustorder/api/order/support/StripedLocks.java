@@ -0,0 +1,49 @@
+package com.rustorder.api.order.support;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * 分段锁
+ * 按键的哈希映射到固定数量的锁上：同一个键总是使用同一把锁，不同的键大概率落在不同的锁上，
+ * 锁的数量不随键的数量增长，也不需要清理
+ */
+public class StripedLocks {
+
+    private final ReentrantLock[] locks;
+    private final int mask;
+
+    /**
+     * @param stripes 锁的数量，向上取整为2的幂
+     */
+    public StripedLocks(int stripes) {
+        int size = 1;
+        while (size < stripes) {
+            size <<= 1;
+        }
+        this.locks = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * 持有键对应的锁执行操作
+     */
+    public <T> T withLock(Object key, Supplier<T> action) {
+        ReentrantLock lock = lockFor(key);
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private ReentrantLock lockFor(Object key) {
+        int hash = key == null ? 0 : key.hashCode();
+        // 混入高位，避免哈希值只在高位不同的键落到同一把锁上
+        return locks[(hash ^ (hash >>> 16)) & mask];
+    }
+}
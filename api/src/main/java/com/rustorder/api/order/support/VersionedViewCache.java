@@ -0,0 +1,45 @@
+package com.rustorder.api.order.support;
+
+import java.util.function.Supplier;
+
+/**
+ * 按版本号缓存的渲染结果，用于不随目录快照替换的视图（如包含未落库评分的排名）
+ * 只保留最新版本的结果，版本号前进时整体丢弃
+ * 调用方需在读取视图数据之前取得版本号，保证缓存在某个版本下的数据不会早于该版本
+ */
+public class VersionedViewCache {
+
+    private volatile Generation generation = new Generation(Long.MIN_VALUE);
+
+    /**
+     * 获取视图在给定版本下的渲染结果，同一版本内只渲染一次
+     * @param version  读取视图数据之前取得的版本号
+     * @param viewKey  视图标识（包含查询参数）
+     * @param renderer 渲染函数
+     */
+    public <T> T rendered(long version, String viewKey, Supplier<T> renderer) {
+        Generation current = generation;
+        if (current.version() < version) {
+            current = advance(version);
+        }
+        // 请求开始后版本已经前进，渲染结果可能早于最新版本，不写入缓存
+        if (current.version() != version) {
+            return renderer.get();
+        }
+        return current.views().rendered(viewKey, renderer);
+    }
+
+    private synchronized Generation advance(long version) {
+        if (generation.version() < version) {
+            generation = new Generation(version);
+        }
+        return generation;
+    }
+
+    private record Generation(long version, RenderedViews views) {
+
+        Generation(long version) {
+            this(version, new RenderedViews());
+        }
+    }
+}
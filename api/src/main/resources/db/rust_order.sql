@@ -187,7 +187,8 @@ CREATE TABLE `t_order_new`  (
   `updated_at` datetime(6) NULL DEFAULT NULL,
   `user_id` varchar(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci NOT NULL,
   PRIMARY KEY (`id`) USING BTREE,
-  UNIQUE INDEX `UKhund7xt9ymjtyhak9q1vjb4tm`(`pickup_code` ASC) USING BTREE
+  INDEX `idx_order_new_pickup_code`(`pickup_code` ASC) USING BTREE,
+  INDEX `idx_order_new_created_at`(`created_at` ASC, `id` ASC) USING BTREE
 ) ENGINE = InnoDB AUTO_INCREMENT = 51 CHARACTER SET = utf8mb4 COLLATE = utf8mb4_unicode_ci ROW_FORMAT = Dynamic;
 
 -- ----------------------------
@@ -244,6 +245,18 @@ INSERT INTO `t_order_new` VALUES (48, '2025-09-26 16:19:27.395000', NULL, 'READY
 INSERT INTO `t_order_new` VALUES (49, '2025-09-26 16:22:22.485000', NULL, 'READY', '459388', 58, 15, 39, '2025-09-26 16:22:26.400000', 'user123');
 INSERT INTO `t_order_new` VALUES (50, '2025-09-26 16:22:30.117000', NULL, 'PENDING', '502897', 85, 15, 39, '2025-09-26 16:22:30.117000', 'user123');
 
+-- ----------------------------
+-- Table structure for t_queue_sequence
+-- ----------------------------
+DROP TABLE IF EXISTS `t_queue_sequence`;
+CREATE TABLE `t_queue_sequence`  (
+  `sequence_name` varchar(64) CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci NOT NULL,
+  `business_date` date NOT NULL,
+  `high_water_mark` int NOT NULL,
+  `updated_at` datetime(6) NULL DEFAULT NULL,
+  PRIMARY KEY (`sequence_name`) USING BTREE
+) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_unicode_ci ROW_FORMAT = Dynamic;
+
 -- ----------------------------
 -- View structure for v_index_usage
 -- ----------------------------
@@ -0,0 +1,105 @@
+package com.rustorder.api.order.model;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CartTests {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void totalsFollowAddUpdateAndRemove() {
+        Cart cart = new Cart("user-1");
+        cart.addItem(new CartItem("牛肉面", "主食", 18.5, 2));
+        cart.addItem(new CartItem("酸梅汤", "饮品", 0.1, 3));
+        // 相同商品合并数量
+        cart.addItem(new CartItem("牛肉面", "主食", 18.5, 1));
+
+        assertThat(cart.getItems()).extracting(CartItem::getName).containsExactly("牛肉面", "酸梅汤");
+        assertThat(cart.getTotalQuantity()).isEqualTo(6);
+        assertThat(cart.getTotalPrice()).isEqualTo(55.8);
+
+        cart.updateItemQuantity("酸梅汤", "饮品", 10);
+        assertThat(cart.getTotalQuantity()).isEqualTo(13);
+        assertThat(cart.getTotalPrice()).isEqualTo(56.5);
+
+        cart.updateItemQuantity("牛肉面", "主食", 0);
+        cart.removeItem("不存在", "主食");
+        assertThat(cart.getItems()).extracting(CartItem::getName).containsExactly("酸梅汤");
+        assertThat(cart.getTotalQuantity()).isEqualTo(10);
+        assertThat(cart.getTotalPrice()).isEqualTo(1.0);
+
+        cart.removeItem("酸梅汤", "饮品");
+        assertThat(cart.getItems()).isEmpty();
+        assertThat(cart.getTotalQuantity()).isZero();
+        assertThat(cart.getTotalPrice()).isZero();
+    }
+
+    @Test
+    void jsonShapeIsUnchanged() throws Exception {
+        JsonNode json = objectMapper.valueToTree(cart());
+
+        assertThat(json.fieldNames()).toIterable()
+                .containsExactlyInAnyOrder("userId", "items", "createdAt", "updatedAt", "totalPrice", "totalQuantity");
+        assertThat(json.get("items").isArray()).isTrue();
+        assertThat(json.get("items").get(0).fieldNames()).toIterable()
+                .containsExactlyInAnyOrder("name", "orderType", "price", "quantity");
+        assertThat(json.get("totalPrice").asDouble()).isEqualTo(43.0);
+        assertThat(json.get("totalQuantity").asInt()).isEqualTo(3);
+    }
+
+    @Test
+    void roundTripsThroughJacksonAndRecomputesTotals() throws Exception {
+        Cart cart = cart();
+
+        Cart read = objectMapper.readValue(objectMapper.writeValueAsBytes(cart), Cart.class);
+
+        assertSame(read, cart);
+    }
+
+    @Test
+    void ignoresSerializedTotalsWhenReading() throws Exception {
+        // 旧版本写入的JSON带有totalPrice、totalQuantity，读取时按商品重新计算
+        String json = "{\"userId\":\"user-1\",\"items\":[{\"name\":\"牛肉面\",\"orderType\":\"主食\",\"price\":18.5,\"quantity\":2}]," +
+                "\"createdAt\":0,\"updatedAt\":0,\"totalPrice\":999.0,\"totalQuantity\":99}";
+
+        Cart read = objectMapper.readValue(json, Cart.class);
+
+        assertThat(read.getTotalPrice()).isEqualTo(37.0);
+        assertThat(read.getTotalQuantity()).isEqualTo(2);
+    }
+
+    @Test
+    void roundTripsThroughTheRedisJsonSerializer() {
+        GenericJackson2JsonRedisSerializer serializer = new GenericJackson2JsonRedisSerializer();
+        Cart cart = cart();
+
+        Cart read = (Cart) serializer.deserialize(serializer.serialize(cart));
+
+        assertSame(read, cart);
+    }
+
+    private static Cart cart() {
+        Cart cart = new Cart("user-1");
+        cart.addItem(new CartItem("牛肉面", "主食", 18.5, 2));
+        cart.addItem(new CartItem("酸梅汤", "饮品", 6.0, 1));
+        cart.setCreatedAt(new Date(1_700_000_000_000L));
+        cart.setUpdatedAt(new Date(1_700_000_100_000L));
+        return cart;
+    }
+
+    private static void assertSame(Cart actual, Cart expected) {
+        assertThat(actual.getUserId()).isEqualTo(expected.getUserId());
+        assertThat(actual.getCreatedAt()).isEqualTo(expected.getCreatedAt());
+        assertThat(actual.getUpdatedAt()).isEqualTo(expected.getUpdatedAt());
+        assertThat(actual.getItems()).usingRecursiveFieldByFieldElementComparator().isEqualTo(expected.getItems());
+        assertThat(actual.getTotalPrice()).isEqualTo(expected.getTotalPrice());
+        assertThat(actual.getTotalQuantity()).isEqualTo(expected.getTotalQuantity());
+    }
+}
@@ -0,0 +1,190 @@
+package com.rustorder.api.order.service;
+
+import com.rustorder.api.order.dto.OrderDelta;
+import com.rustorder.api.order.dto.OrderDeltaResponse;
+import com.rustorder.api.order.dto.OrderResponse;
+import com.rustorder.api.order.event.OrderChangedEvent;
+import com.rustorder.api.order.event.OrderDeltaEvent;
+import com.rustorder.api.order.model.OrderNew;
+import com.rustorder.api.order.model.OrderStatus;
+import com.rustorder.api.order.repository.OrderNewRepository;
+import com.rustorder.api.order.repository.QueueSequenceRepository;
+import com.rustorder.api.order.service.impl.ActiveOrderQueueImpl;
+import com.rustorder.api.order.service.impl.QueueNumberAllocatorImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ActiveOrderQueueTests {
+
+    private static final long CREATED_AT = 1_700_000_000_000L;
+
+    private final OrderNewRepository orderRepository = mock(OrderNewRepository.class);
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private final QueueNumberAllocator queueNumberAllocator = new QueueNumberAllocatorImpl(
+            orderRepository, mock(QueueSequenceRepository.class), "04:00", "Asia/Shanghai");
+    private final List<OrderDeltaEvent> published = new ArrayList<>();
+    private ActiveOrderQueueImpl queue;
+
+    @BeforeEach
+    void setUp() {
+        when(orderRepository.findWithItemsByOrderStatusIn(any())).thenReturn(List.of());
+        doAnswer(invocation -> published.add(invocation.getArgument(0))).when(eventPublisher).publishEvent(any(Object.class));
+        queue = start(3);
+    }
+
+    @Test
+    void classifiesChangesAndSendsOnlyTheChangedFields() {
+        change(OrderChangedEvent.Type.CREATED, order(1L, OrderStatus.PENDING, "少辣", CREATED_AT));
+        change(OrderChangedEvent.Type.STATUS_CHANGED, order(1L, OrderStatus.CONFIRMED, "少辣", CREATED_AT + 1000));
+        change(OrderChangedEvent.Type.UPDATED, order(1L, OrderStatus.CONFIRMED, "不要辣", CREATED_AT + 1000));
+        change(OrderChangedEvent.Type.STATUS_CHANGED, order(1L, OrderStatus.COMPLETED, "不要辣", CREATED_AT + 2000));
+
+        List<OrderDelta> deltas = published.stream().map(OrderDeltaEvent::getDelta).toList();
+        assertThat(deltas).extracting(OrderDelta::getSequence).containsExactly(1L, 2L, 3L, 4L);
+        assertThat(deltas).extracting(OrderDelta::getType).containsExactly(
+                OrderDelta.Type.ADDED, OrderDelta.Type.STATUS_CHANGED, OrderDelta.Type.UPDATED, OrderDelta.Type.REMOVED);
+
+        assertThat(deltas.get(0).getOrder().getId()).isEqualTo(1L);
+        assertThat(deltas.get(0).getChanges()).isNull();
+        assertThat(deltas.get(1).getOrder()).isNull();
+        assertThat(deltas.get(1).getChanges()).containsOnlyKeys("orderStatus", "updatedAt")
+                .containsEntry("orderStatus", OrderStatus.CONFIRMED);
+        assertThat(deltas.get(2).getChanges()).containsExactly(Map.entry("notes", "不要辣"));
+        assertThat(deltas.get(3).getChanges()).containsExactly(Map.entry("orderStatus", OrderStatus.COMPLETED));
+        assertThat(queue.getOrder(1L)).isEmpty();
+        assertThat(published).extracting(OrderDeltaEvent::getEpoch).containsOnly(published.get(0).getEpoch());
+    }
+
+    @Test
+    void skipsChangesThatDoNotAffectTheQueue() {
+        OrderResponse order = order(1L, OrderStatus.PENDING, null, CREATED_AT);
+        change(OrderChangedEvent.Type.CREATED, order);
+        // 内容相同的修改
+        change(OrderChangedEvent.Type.UPDATED, order(1L, OrderStatus.PENDING, null, CREATED_AT));
+        // 不在队列中的订单进入终态
+        change(OrderChangedEvent.Type.STATUS_CHANGED, order(2L, OrderStatus.CANCELLED, null, CREATED_AT));
+        change(OrderChangedEvent.Type.DELETED, order);
+
+        assertThat(published).extracting(event -> event.getDelta().getType())
+                .containsExactly(OrderDelta.Type.ADDED, OrderDelta.Type.REMOVED);
+        // 被删除的订单没有最终状态
+        assertThat(published.get(1).getDelta().getChanges()).isNull();
+    }
+
+    @Test
+    void timestampsLoadedFromTheDatabaseEqualTheSameInstantAsDate() {
+        OrderNew stored = new OrderNew();
+        stored.setId(1L);
+        stored.setUserId("user-1");
+        stored.setPickupCode("000001");
+        stored.setOrderStatus(OrderStatus.PENDING);
+        stored.setQueueNumber(1);
+        stored.setTotalPrice(18.0);
+        stored.setTotalEstimatedTime(10);
+        stored.setCreatedAt(new Timestamp(CREATED_AT));
+        stored.setUpdatedAt(new Timestamp(CREATED_AT));
+        when(orderRepository.findWithItemsByOrderStatusIn(any())).thenReturn(List.of(stored));
+        queue.rebuild();
+
+        change(OrderChangedEvent.Type.STATUS_CHANGED, order(1L, OrderStatus.CONFIRMED, null, CREATED_AT));
+
+        assertThat(published).singleElement().satisfies(event ->
+                assertThat(event.getDelta().getChanges()).containsOnlyKeys("orderStatus"));
+    }
+
+    @Test
+    void resumesFromTheBufferAndFallsBackToASnapshot() {
+        change(OrderChangedEvent.Type.CREATED, order(1L, OrderStatus.PENDING, null, CREATED_AT));
+        change(OrderChangedEvent.Type.CREATED, order(2L, OrderStatus.PENDING, null, CREATED_AT));
+        long epoch = published.get(0).getEpoch();
+
+        OrderDeltaResponse resumed = queue.getDeltasSince(epoch, 1L);
+        assertThat(resumed.isSnapshot()).isFalse();
+        assertThat(resumed.getLastSequence()).isEqualTo(2L);
+        assertThat(resumed.getDeltas()).extracting(OrderDelta::getOrderId).containsExactly(2L);
+        assertThat(queue.getDeltasSince(epoch, 2L).getDeltas()).isEmpty();
+
+        // 未传序号、epoch不一致时返回快照
+        assertSnapshot(queue.getDeltasSince(epoch, null), 2L, 1L, 2L);
+        assertSnapshot(queue.getDeltasSince(epoch - 1, 1L), 2L, 1L, 2L);
+
+        // 缓冲区只保留3条，序号1之后的增量已被覆盖
+        change(OrderChangedEvent.Type.CREATED, order(3L, OrderStatus.PENDING, null, CREATED_AT));
+        change(OrderChangedEvent.Type.STATUS_CHANGED, order(1L, OrderStatus.CANCELLED, null, CREATED_AT));
+        change(OrderChangedEvent.Type.STATUS_CHANGED, order(2L, OrderStatus.READY, null, CREATED_AT));
+        assertThat(queue.getDeltasSince(epoch, 2L).getDeltas()).extracting(OrderDelta::getSequence).containsExactly(3L, 4L, 5L);
+        assertSnapshot(queue.getDeltasSince(epoch, 1L), 5L, 2L, 3L);
+    }
+
+    @Test
+    void rebuildStartsANewEpoch() {
+        change(OrderChangedEvent.Type.CREATED, order(1L, OrderStatus.PENDING, null, CREATED_AT));
+        long epoch = published.get(0).getEpoch();
+
+        queue.rebuild();
+
+        OrderDeltaResponse response = queue.getDeltasSince(epoch, 1L);
+        assertThat(response.getEpoch()).isGreaterThan(epoch);
+        assertThat(response.isSnapshot()).isTrue();
+        assertThat(response.getLastSequence()).isZero();
+    }
+
+    @Test
+    void ordersLeftFromThePreviousBusinessDayStayAheadOfTodaysNumbers() {
+        long yesterday = CREATED_AT - 24 * 60 * 60 * 1000L;
+        change(OrderChangedEvent.Type.CREATED, queued(1L, 7, yesterday));
+        change(OrderChangedEvent.Type.CREATED, queued(2L, 1, CREATED_AT));
+        // 队列号与前一营业日的订单相同
+        change(OrderChangedEvent.Type.CREATED, queued(3L, 7, CREATED_AT));
+
+        assertThat(queue.getOrders(OrderStatus.activeStatuses())).extracting(OrderResponse::getId)
+                .containsExactly(1L, 2L, 3L);
+        assertThat(queue.getUserQueuePosition("user-1").getOrdersAhead()).isZero();
+        assertThat(queue.getUserQueuePosition("user-2").getOrdersAhead()).isEqualTo(1);
+        assertThat(queue.getUserQueuePosition("user-3").getOrdersAhead()).isEqualTo(2);
+
+        change(OrderChangedEvent.Type.STATUS_CHANGED, order(1L, OrderStatus.COMPLETED, null, CREATED_AT));
+        assertThat(queue.getUserQueuePosition("user-2").getOrdersAhead()).isZero();
+        assertThat(queue.getUserQueuePosition("user-3").getOrdersAhead()).isEqualTo(1);
+    }
+
+    private ActiveOrderQueueImpl start(int bufferSize) {
+        ActiveOrderQueueImpl started = new ActiveOrderQueueImpl(orderRepository, queueNumberAllocator, eventPublisher, bufferSize);
+        started.rebuild();
+        return started;
+    }
+
+    private void change(OrderChangedEvent.Type type, OrderResponse order) {
+        queue.onOrderChanged(new OrderChangedEvent(type, order, null, null));
+    }
+
+    private static void assertSnapshot(OrderDeltaResponse response, long lastSequence, Long... orderIds) {
+        assertThat(response.isSnapshot()).isTrue();
+        assertThat(response.getDeltas()).isEmpty();
+        assertThat(response.getLastSequence()).isEqualTo(lastSequence);
+        assertThat(response.getOrders()).extracting(OrderResponse::getId).containsExactly(orderIds);
+    }
+
+    private static OrderResponse order(Long id, OrderStatus status, String notes, long updatedAt) {
+        return new OrderResponse(id, "user-" + id, String.format("%06d", id), status, id.intValue(), notes, 18.0, 10,
+                new Date(CREATED_AT), new Date(updatedAt), List.of());
+    }
+
+    private static OrderResponse queued(Long id, int queueNumber, long createdAt) {
+        return new OrderResponse(id, "user-" + id, String.format("%06d", id), OrderStatus.PENDING, queueNumber, null, 18.0, 10,
+                new Date(createdAt), new Date(createdAt), List.of());
+    }
+}
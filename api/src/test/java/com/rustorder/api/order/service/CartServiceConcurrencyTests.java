@@ -0,0 +1,116 @@
+package com.rustorder.api.order.service;
+
+import com.rustorder.api.order.model.Cart;
+import com.rustorder.api.order.model.CartItem;
+import com.rustorder.api.order.service.impl.CartServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 购物车并发修改压力测试（Redis不可用，使用本地存储）
+ */
+class CartServiceConcurrencyTests {
+
+    private static final int THREADS = 16;
+    private static final int OPERATIONS_PER_THREAD = 500;
+
+    private CartService cartService;
+
+    @BeforeEach
+    void setUp() {
+        cartService = new CartServiceImpl(new CaffeineCacheManager(), 8);
+        RedisHealthMonitor redisHealthMonitor = mock(RedisHealthMonitor.class);
+        when(redisHealthMonitor.allowRequest()).thenReturn(false);
+        ReflectionTestUtils.setField(cartService, "redisHealthMonitor", redisHealthMonitor);
+    }
+
+    @Test
+    void concurrentAddsToSameItemAreNotLost() throws Exception {
+        runConcurrently(thread -> {
+            for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                cartService.addItemToCart("user-1", item("牛肉面", 1));
+            }
+        });
+
+        Cart cart = cartService.getCart("user-1");
+        assertThat(cart.getItems()).hasSize(1);
+        assertThat(cart.getTotalQuantity()).isEqualTo(THREADS * OPERATIONS_PER_THREAD);
+    }
+
+    @Test
+    void concurrentMixedMutationsKeepCartConsistent() throws Exception {
+        // 每个线程操作自己的商品：反复加入、改数量、移除，最后加入固定数量
+        runConcurrently(thread -> {
+            String name = "dish-" + thread;
+            for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                cartService.addItemToCart("user-1", item(name, 2));
+                cartService.updateItemQuantity("user-1", name, "主食", 5);
+                cartService.getCart("user-1").getTotalPrice();
+                cartService.removeItemFromCart("user-1", name, "主食");
+            }
+            cartService.addItemToCart("user-1", item(name, thread + 1));
+        });
+
+        Cart cart = cartService.getCart("user-1");
+        assertThat(cart.getItems()).hasSize(THREADS);
+        assertThat(cart.getTotalQuantity()).isEqualTo(THREADS * (THREADS + 1) / 2);
+    }
+
+    @Test
+    void differentUsersDoNotShareCarts() throws Exception {
+        runConcurrently(thread -> {
+            for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                cartService.addItemToCart("user-" + thread, item("牛肉面", 1));
+            }
+        });
+
+        for (int thread = 0; thread < THREADS; thread++) {
+            assertThat(cartService.getCart("user-" + thread).getTotalQuantity()).isEqualTo(OPERATIONS_PER_THREAD);
+        }
+    }
+
+    private static CartItem item(String name, int quantity) {
+        return new CartItem(name, "主食", 10.0, quantity);
+    }
+
+    private static void runConcurrently(ThreadTask task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < THREADS; thread++) {
+                int index = thread;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    task.run(index);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @FunctionalInterface
+    private interface ThreadTask {
+        void run(int thread) throws Exception;
+    }
+}
@@ -0,0 +1,97 @@
+package com.rustorder.api.order.service;
+
+import com.rustorder.api.order.model.Cart;
+import com.rustorder.api.order.model.CartItem;
+import com.rustorder.api.order.service.impl.CartServiceImpl;
+import com.rustorder.api.order.support.CartHashCodec;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 切换到哈希存储后，整体存储的旧购物车在首次访问时转换为哈希
+ */
+class CartServiceLegacyMigrationTests {
+
+    private final StringRedisTemplate stringRedisTemplate = mock(StringRedisTemplate.class);
+    @SuppressWarnings("unchecked")
+    private final RedisTemplate<String, Object> redisTemplate = mock(RedisTemplate.class);
+    @SuppressWarnings("unchecked")
+    private final HashOperations<String, Object, Object> hashOperations = mock(HashOperations.class);
+    @SuppressWarnings("unchecked")
+    private final ValueOperations<String, Object> valueOperations = mock(ValueOperations.class);
+    private CartService cartService;
+
+    @BeforeEach
+    void setUp() {
+        cartService = new CartServiceImpl(new CaffeineCacheManager(), 8);
+        RedisHealthMonitor redisHealthMonitor = mock(RedisHealthMonitor.class);
+        when(redisHealthMonitor.allowRequest()).thenReturn(true);
+        ReflectionTestUtils.setField(cartService, "redisHealthMonitor", redisHealthMonitor);
+        ReflectionTestUtils.setField(cartService, "stringRedisTemplate", stringRedisTemplate);
+        ReflectionTestUtils.setField(cartService, "redisTemplate", redisTemplate);
+        ReflectionTestUtils.setField(cartService, "redisStorage", "hash");
+        when(stringRedisTemplate.opsForHash()).thenReturn(hashOperations);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+
+        Cart legacy = new Cart("user-1");
+        legacy.addItem(new CartItem("牛肉面", "主食", 18.0, 2));
+        legacy.setCreatedAt(new Date(1000L));
+        when(valueOperations.get("cart:user-1")).thenReturn(legacy);
+    }
+
+    @Test
+    void readConvertsTheLegacyValueWhenTheHashIsMissing() {
+        when(hashOperations.entries("cart:h:user-1")).thenReturn(Map.of());
+        // 脚本把传入的字段写入哈希后原样返回
+        when(stringRedisTemplate.execute(any(RedisScript.class), eq(List.of("cart:h:user-1", "cart:user-1")), any(Object[].class)))
+                .thenAnswer(invocation -> {
+                    Object[] args = Arrays.copyOfRange(invocation.getArguments(), 2, invocation.getArguments().length);
+                    return Arrays.asList(args).subList(1, args.length);
+                });
+
+        Cart cart = cartService.getCart("user-1");
+
+        assertThat(cart.getItems()).singleElement().satisfies(item -> {
+            assertThat(item.getName()).isEqualTo("牛肉面");
+            assertThat(item.getQuantity()).isEqualTo(2);
+        });
+        assertThat(cart.getCreatedAt()).isEqualTo(new Date(1000L));
+    }
+
+    @Test
+    void writesMigrateFirstWhenTheScriptReportsALegacyCart() {
+        List<Object> afterMigration = List.copyOf(CartHashCodec.encode(new Cart("user-1"), 0L));
+        List<Object> afterAdd = List.copyOf(CartHashCodec.encode(cartWith(new CartItem("牛肉面", "主食", 18.0, 3)), 0L));
+        when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenReturn(List.of(CartHashCodec.LEGACY), afterMigration, afterAdd);
+
+        Cart cart = cartService.addItemToCart("user-1", new CartItem("牛肉面", "主食", 18.0, 1));
+
+        assertThat(cart.getItems()).singleElement().extracting(CartItem::getQuantity).isEqualTo(3);
+    }
+
+    private static Cart cartWith(CartItem item) {
+        Cart cart = new Cart("user-1");
+        cart.addItem(item);
+        return cart;
+    }
+}
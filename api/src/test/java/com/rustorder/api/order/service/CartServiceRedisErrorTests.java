@@ -0,0 +1,81 @@
+package com.rustorder.api.order.service;
+
+import com.rustorder.api.order.exception.InvalidCartException;
+import com.rustorder.api.order.model.Cart;
+import com.rustorder.api.order.model.CartItem;
+import com.rustorder.api.order.service.impl.CartServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.redis.RedisSystemException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * 只有连接失败和超时计入熔断并降级到本地购物车，参数错误和脚本错误直接返回给调用方
+ */
+class CartServiceRedisErrorTests {
+
+    private final StringRedisTemplate stringRedisTemplate = mock(StringRedisTemplate.class);
+    private final RedisHealthMonitor redisHealthMonitor = mock(RedisHealthMonitor.class);
+    private CartService cartService;
+
+    @BeforeEach
+    void setUp() {
+        cartService = new CartServiceImpl(new CaffeineCacheManager(), 8);
+        when(redisHealthMonitor.allowRequest()).thenReturn(true);
+        ReflectionTestUtils.setField(cartService, "redisHealthMonitor", redisHealthMonitor);
+        ReflectionTestUtils.setField(cartService, "stringRedisTemplate", stringRedisTemplate);
+        ReflectionTestUtils.setField(cartService, "redisStorage", "hash");
+    }
+
+    @Test
+    void rejectsInvalidQuantitiesBeforeCallingRedis() {
+        assertThatThrownBy(() -> cartService.updateItemQuantity("user-1", "牛肉面", "主食", null))
+                .isInstanceOf(InvalidCartException.class);
+        assertThatThrownBy(() -> cartService.updateItemQuantity("user-1", "牛肉面", "主食", -1))
+                .isInstanceOf(InvalidCartException.class);
+        assertThatThrownBy(() -> cartService.addItemToCart("user-1", new CartItem("牛肉面", "主食", 18.0, 0)))
+                .isInstanceOf(InvalidCartException.class);
+
+        verifyNoInteractions(stringRedisTemplate);
+        verify(redisHealthMonitor, never()).recordFailure(any());
+    }
+
+    @Test
+    void scriptErrorsAreRethrownWithoutTrippingTheBreaker() {
+        when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenThrow(new RedisSystemException("ERR value is not an integer", new IllegalStateException()));
+
+        assertThatThrownBy(() -> cartService.updateItemQuantity("user-1", "牛肉面", "主食", 2))
+                .isInstanceOf(RedisSystemException.class);
+
+        verify(redisHealthMonitor, never()).recordFailure(any());
+        // 没有写入本地购物车
+        when(redisHealthMonitor.allowRequest()).thenReturn(false);
+        assertThat(cartService.getCart("user-1").getItems()).isEmpty();
+    }
+
+    @Test
+    void timeoutsTripTheBreakerAndFallBackToTheLocalCart() {
+        QueryTimeoutException timeout = new QueryTimeoutException("Redis command timed out");
+        when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class))).thenThrow(timeout);
+
+        Cart cart = cartService.addItemToCart("user-1", new CartItem("牛肉面", "主食", 18.0, 2));
+
+        verify(redisHealthMonitor).recordFailure(timeout);
+        assertThat(cart.getItems()).singleElement().extracting(CartItem::getQuantity).isEqualTo(2);
+    }
+}
@@ -0,0 +1,128 @@
+package com.rustorder.api.order.service;
+
+import com.rustorder.api.order.model.Dish;
+import com.rustorder.api.order.repository.DishRepository;
+import com.rustorder.api.order.service.impl.DishCatalogServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * 评分只记录在内存中，落库前的读取同样得到精确的当前平均分
+ */
+class DishCatalogServiceTests {
+
+    private final DishRepository dishRepository = mock(DishRepository.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private DishCatalogService catalogService;
+
+    @BeforeEach
+    void setUp() {
+        when(dishRepository.findAll()).thenReturn(List.of(dish(1L, "牛肉面", 4.0, 2), dish(2L, "炒饭", 4.5, 2)));
+        catalogService = new DishCatalogServiceImpl(dishRepository, jdbcTemplate, mock(TransactionTemplate.class));
+        catalogService.reload();
+    }
+
+    @Test
+    void readsIncludeRatingsThatAreNotFlushedYet() {
+        catalogService.rateDish(1L, 5.0);
+        catalogService.rateDish(1L, 5.0);
+
+        Dish dish = catalogService.getDish(1L).orElseThrow();
+        assertThat(dish.getRating()).isEqualTo(4.5);
+        assertThat(dish.getRatingCount()).isEqualTo(4);
+        // 快照中的列表视图等到落库后再更新
+        assertThat(catalogService.snapshot().getDish(1L).orElseThrow().getRating()).isEqualTo(4.0);
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void topRatedRankingFollowsTheCurrentAverage() {
+        assertThat(catalogService.getTopRatedDishes(0, 2)).extracting(Dish::getId).containsExactly(2L, 1L);
+
+        for (int i = 0; i < 6; i++) {
+            catalogService.rateDish(1L, 5.0);
+        }
+        // 排名由后台批量调整
+        assertThat(catalogService.getTopRatedDishes(0, 2)).extracting(Dish::getId).containsExactly(2L, 1L);
+        catalogService.refreshRanks();
+
+        // (4.0 * 2 + 5.0 * 6) / 8 = 4.75
+        assertThat(catalogService.getTopRatedDishes(4.6, 2)).extracting(Dish::getId).containsExactly(1L);
+        assertThat(catalogService.getTopRatedDishes(0, 2)).extracting(Dish::getRating).containsExactly(4.75, 4.5);
+        assertThat(catalogService.getPopularDishes(2)).extracting(Dish::getId).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void popularRankingFollowsSalesThatAreNotFlushedYet() {
+        assertThat(catalogService.getPopularDishes(2)).extracting(Dish::getId).containsExactly(2L, 1L);
+
+        assertThat(catalogService.incrementSales(1L, 3).orElseThrow().getSalesCount()).isEqualTo(13);
+        catalogService.refreshRanks();
+
+        assertThat(catalogService.getPopularDishes(2)).extracting(Dish::getSalesCount).containsExactly(13, 10);
+        assertThat(catalogService.getDish(1L).orElseThrow().getSalesCount()).isEqualTo(13);
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void ratingDoesNotWaitForTheCatalogLock() throws Exception {
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        // 模拟正在重新加载目录或落库的线程
+        Thread holder = new Thread(() -> {
+            synchronized (catalogService) {
+                locked.countDown();
+                awaitQuietly(release);
+            }
+        });
+        holder.start();
+        try {
+            assertThat(locked.await(5, TimeUnit.SECONDS)).isTrue();
+            CompletableFuture<Dish> rated = CompletableFuture.supplyAsync(() -> catalogService.rateDish(1L, 5.0).orElseThrow());
+            assertThat(rated.get(5, TimeUnit.SECONDS).getRatingCount()).isEqualTo(3);
+        } finally {
+            release.countDown();
+            holder.join();
+        }
+        assertThat(catalogService.getTopRatedDishes(0, 2)).extracting(Dish::getRating).containsExactly(4.5, 4.0);
+        catalogService.refreshRanks();
+        // (4.0 * 2 + 5.0) / 3 = 4.33
+        assertThat(catalogService.getTopRatedDishes(0, 2)).extracting(Dish::getRating).containsExactly(4.5, 4.33);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Dish dish(Long id, String name, double rating, int ratingCount) {
+        Dish dish = new Dish();
+        dish.setId(id);
+        dish.setDishName(name);
+        dish.setDishType("主食");
+        dish.setPrice(20.0);
+        dish.setIsAvailable(true);
+        dish.setSortOrder(0);
+        dish.setSalesCount(10);
+        dish.setRating(rating);
+        dish.setRatingCount(ratingCount);
+        dish.setCreatedAt(new Date(0));
+        return dish;
+    }
+}
@@ -0,0 +1,89 @@
+package com.rustorder.api.order.service;
+
+import com.rustorder.api.order.dto.OrderResponse;
+import com.rustorder.api.order.model.OrderItem;
+import com.rustorder.api.order.model.OrderNew;
+import com.rustorder.api.order.model.OrderStatus;
+import com.rustorder.api.order.repository.OrderItemRepository;
+import com.rustorder.api.order.repository.OrderNewRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 缓存的订单响应不与调用方共享，修改返回值不会影响之后的读取
+ */
+class ImprovedOrderServiceCacheTests {
+
+    private final OrderNewRepository orderRepository = mock(OrderNewRepository.class);
+    private ImprovedOrderService orderService;
+
+    @BeforeEach
+    void setUp() {
+        orderService = new ImprovedOrderService(orderRepository, mock(OrderItemRepository.class),
+            mock(QueueNumberAllocator.class), mock(PickupCodePool.class), mock(ActiveOrderQueue.class),
+            mock(DishCatalogService.class), mock(ApplicationEventPublisher.class), new ConcurrentMapCacheManager(), 20, 100);
+        OrderNew order = order();
+        when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
+        when(orderRepository.findFirstByPickupCodeOrderByIdDesc("000001")).thenReturn(Optional.of(order));
+        when(orderRepository.findWithItemsByUserIdOrderByCreatedAtDesc("user-1")).thenReturn(List.of(order));
+    }
+
+    @Test
+    void callersReceiveIndependentCopiesOfTheCachedOrder() {
+        OrderResponse first = orderService.getOrderById(1L);
+        first.setOrderStatus(OrderStatus.CANCELLED);
+        first.getItems().get(0).setQuantity(99);
+        first.getCreatedAt().setTime(0);
+
+        OrderResponse second = orderService.getOrderById(1L);
+
+        assertThat(second).isNotSameAs(first);
+        assertThat(second.getOrderStatus()).isEqualTo(OrderStatus.PENDING);
+        assertThat(second.getItems()).singleElement().extracting("quantity").isEqualTo(2);
+        assertThat(second.getCreatedAt()).isEqualTo(new Date(1_700_000_000_000L));
+        verify(orderRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    void pickupCodeAndUserListsAreCopiedToo() {
+        orderService.getOrderByPickupCode("000001").setNotes("改过");
+        assertThat(orderService.getOrderByPickupCode("000001").getNotes()).isNull();
+
+        List<OrderResponse> orders = orderService.getUserOrders("user-1");
+        orders.get(0).setOrderStatus(OrderStatus.CANCELLED);
+        orders.clear();
+        assertThat(orderService.getUserOrders("user-1")).singleElement()
+            .extracting(OrderResponse::getOrderStatus).isEqualTo(OrderStatus.PENDING);
+        verify(orderRepository, times(1)).findWithItemsByUserIdOrderByCreatedAtDesc("user-1");
+    }
+
+    private static OrderNew order() {
+        OrderNew order = new OrderNew();
+        order.setId(1L);
+        order.setUserId("user-1");
+        order.setPickupCode("000001");
+        order.setOrderStatus(OrderStatus.PENDING);
+        order.setQueueNumber(1);
+        order.setTotalPrice(36.0);
+        order.setCreatedAt(new Date(1_700_000_000_000L));
+        OrderItem item = new OrderItem();
+        item.setDishName("牛肉面");
+        item.setDishType("主食");
+        item.setUnitPrice(18.0);
+        item.setQuantity(2);
+        order.addItem(item);
+        return order;
+    }
+}
@@ -0,0 +1,221 @@
+package com.rustorder.api.order.service;
+
+import com.rustorder.api.order.dto.CreateOrderRequest;
+import com.rustorder.api.order.dto.OrderItemRequest;
+import com.rustorder.api.order.dto.OrderPageResponse;
+import com.rustorder.api.order.dto.OrderResponse;
+import com.rustorder.api.order.exception.InvalidOrderException;
+import com.rustorder.api.order.model.Dish;
+import com.rustorder.api.order.model.OrderItem;
+import com.rustorder.api.order.model.OrderNew;
+import com.rustorder.api.order.model.OrderStatus;
+import com.rustorder.api.order.support.DishCatalogSnapshot;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest(properties = {
+    "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Import({ImprovedOrderService.class, NoOpCacheManager.class})
+class ImprovedOrderServiceTests {
+
+    @Autowired
+    private ImprovedOrderService orderService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @MockitoBean
+    private QueueNumberAllocator queueNumberAllocator;
+
+    @MockitoBean
+    private PickupCodePool pickupCodePool;
+
+    @MockitoBean
+    private ActiveOrderQueue activeOrderQueue;
+
+    @MockitoBean
+    private DishCatalogService dishCatalogService;
+
+    private Statistics statistics;
+    private int savedOrders;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void listQueriesUseConstantStatementCountAsOrdersGrow() {
+        saveOrders(1);
+        long pageForOne = countStatements(() -> orderService.getOrderPage(null, 100).getOrders().size());
+        long userForOne = countStatements(() -> orderService.getUserOrders("user-1").size());
+        long statusForOne = countStatements(() -> orderService.getOrdersByStatus(OrderStatus.PENDING).size());
+
+        saveOrders(30);
+        long pageForMany = countStatements(() -> orderService.getOrderPage(null, 100).getOrders().size());
+        long userForMany = countStatements(() -> orderService.getUserOrders("user-1").size());
+        long statusForMany = countStatements(() -> orderService.getOrdersByStatus(OrderStatus.PENDING).size());
+
+        // 分页先取一页ID，再按ID抓取订单及订单项
+        assertThat(pageForMany).isEqualTo(pageForOne).isEqualTo(2);
+        assertThat(userForMany).isEqualTo(userForOne).isEqualTo(1);
+        assertThat(statusForMany).isEqualTo(statusForOne).isEqualTo(1);
+    }
+
+    @Test
+    void listQueriesReturnEveryItemOfEveryOrder() {
+        saveOrders(5);
+        entityManager.clear();
+
+        assertThat(orderService.getOrderPage(null, 100).getOrders())
+            .hasSize(5)
+            .allSatisfy(order -> assertThat(order.getItems()).hasSize(3));
+    }
+
+    @Test
+    void pageCursorWalksEveryOrderOnceInCreationOrder() {
+        // 相同创建时间的订单依靠ID区分先后
+        saveOrders(7);
+        entityManager.clear();
+
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            OrderPageResponse page = orderService.getOrderPage(cursor, 3);
+            page.getOrders().stream().map(OrderResponse::getId).forEach(seen::add);
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertThat(pages).isEqualTo(3);
+        assertThat(seen).hasSize(7).doesNotHaveDuplicates();
+        assertThat(seen).isSortedAccordingTo((a, b) -> Long.compare(b, a));
+    }
+
+    @Test
+    void pageCursorFiltersByStatusInTheQuery() {
+        saveOrders(9);
+        // 每隔一个订单标记为已完成
+        entityManager.createQuery("UPDATE OrderNew o SET o.orderStatus = :status WHERE MOD(o.queueNumber, 2) = 0")
+            .setParameter("status", OrderStatus.COMPLETED)
+            .executeUpdate();
+        entityManager.clear();
+
+        List<OrderResponse> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            OrderPageResponse page = orderService.getOrderPage(cursor, 3, List.of(OrderStatus.COMPLETED, OrderStatus.CANCELLED));
+            assertThat(page.getOrders()).hasSizeLessThanOrEqualTo(3);
+            seen.addAll(page.getOrders());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertThat(seen).hasSize(4).allSatisfy(order -> assertThat(order.getOrderStatus()).isEqualTo(OrderStatus.COMPLETED));
+        assertThat(seen).extracting(OrderResponse::getId).isSortedAccordingTo((a, b) -> Long.compare(b, a));
+    }
+
+    @Test
+    void createOrderTakesPriceTypeAndTimeFromCatalog() {
+        when(dishCatalogService.snapshot()).thenReturn(DishCatalogSnapshot.of(1, List.of(
+            dish(1L, "牛肉面", 18.0, true), dish(2L, "凉皮", 9.0, false))));
+        when(pickupCodePool.allocate()).thenReturn("000001");
+
+        OrderItemRequest tampered = item("牛肉面", 2);
+        tampered.setUnitPrice(0.01);
+        tampered.setDishType("饮品");
+        tampered.setEstimatedTime(1);
+        OrderResponse order = orderService.createOrder(request(tampered));
+
+        assertThat(order.getTotalPrice()).isEqualTo(36.0);
+        assertThat(order.getTotalEstimatedTime()).isEqualTo(12);
+        assertThat(order.getItems()).singleElement().satisfies(item -> {
+            assertThat(item.getUnitPrice()).isEqualTo(18.0);
+            assertThat(item.getDishType()).isEqualTo("主食");
+        });
+
+        // 下架或不存在的菜品、非法数量都拒绝下单
+        assertThatThrownBy(() -> orderService.createOrder(request(item("凉皮", 1))))
+            .isInstanceOf(InvalidOrderException.class);
+        assertThatThrownBy(() -> orderService.createOrder(request(item("不存在", 1))))
+            .isInstanceOf(InvalidOrderException.class);
+        assertThatThrownBy(() -> orderService.createOrder(request(item("牛肉面", 0))))
+            .isInstanceOf(InvalidOrderException.class);
+    }
+
+    private static Dish dish(Long id, String name, double price, boolean available) {
+        Dish dish = new Dish();
+        dish.setId(id);
+        dish.setDishName(name);
+        dish.setDishType("主食");
+        dish.setPrice(price);
+        dish.setEstimatedTime(12);
+        dish.setIsAvailable(available);
+        return dish;
+    }
+
+    private static OrderItemRequest item(String dishName, int quantity) {
+        OrderItemRequest item = new OrderItemRequest();
+        item.setDishName(dishName);
+        item.setQuantity(quantity);
+        return item;
+    }
+
+    private static CreateOrderRequest request(OrderItemRequest... items) {
+        CreateOrderRequest request = new CreateOrderRequest();
+        request.setUserId("user-1");
+        request.setItems(List.of(items));
+        return request;
+    }
+
+    /**
+     * 清空一级缓存后执行查询并转换为响应，返回执行的SQL语句数
+     */
+    private long countStatements(Supplier<Integer> query) {
+        entityManager.clear();
+        statistics.clear();
+        assertThat(query.get()).isPositive();
+        return statistics.getPrepareStatementCount();
+    }
+
+    private void saveOrders(int count) {
+        for (int i = 0; i < count; i++) {
+            OrderNew order = new OrderNew();
+            order.setUserId("user-1");
+            order.setPickupCode(String.format("%06d", savedOrders));
+            order.setOrderStatus(OrderStatus.PENDING);
+            order.setQueueNumber(++savedOrders);
+            order.setTotalPrice(0.0);
+            order.setCreatedAt(new Date(1_700_000_000_000L + savedOrders / 3 * 1000L));
+            for (int j = 0; j < 3; j++) {
+                OrderItem item = new OrderItem();
+                item.setDishName("dish-" + j);
+                item.setDishType("主食");
+                item.setUnitPrice(10.0);
+                item.setQuantity(1);
+                order.addItem(item);
+            }
+            entityManager.persist(order);
+        }
+        entityManager.flush();
+    }
+}
@@ -0,0 +1,93 @@
+package com.rustorder.api.order.service;
+
+import com.rustorder.api.order.event.OrderNotificationEvent;
+import com.rustorder.api.order.model.Order;
+import com.rustorder.api.order.model.OrderStatus;
+import com.rustorder.api.order.service.impl.OrderNotificationDispatcherImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+class OrderNotificationDispatcherTests {
+
+    private final OrderNotificationService notificationService = mock(OrderNotificationService.class);
+    private OrderNotificationDispatcherImpl dispatcher;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        dispatcher.stop();
+    }
+
+    @Test
+    void sendsEachEventInOrderAndOneStatisticsUpdatePerInterval() {
+        dispatcher = start(10);
+        Order order = order(1L);
+
+        dispatcher.onNotification(OrderNotificationEvent.newOrder(order));
+        dispatcher.onNotification(OrderNotificationEvent.statusChange(order, OrderStatus.PENDING, OrderStatus.CONFIRMED));
+        dispatcher.flushStatistics();
+        // 间隔内没有新的变化，不再发送
+        dispatcher.flushStatistics();
+
+        verify(notificationService, timeout(1000)).notifyNewOrder(order);
+        verify(notificationService, timeout(1000)).notifyOrderStatusChange(order, OrderStatus.PENDING, OrderStatus.CONFIRMED);
+        verify(notificationService, timeout(1000)).notifyQueueStatisticsUpdate();
+        assertThat(dispatcher.getMetrics().merged()).isEqualTo(1);
+    }
+
+    @Test
+    void dropsOrderEventsAndMergesStatisticsWhenTheQueueIsFull() throws InterruptedException {
+        dispatcher = start(4);
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            sending.countDown();
+            release.await();
+            return null;
+        }).when(notificationService).notifyNewOrder(any());
+
+        // 第一个通知占住发送线程，之后的通知只能排队
+        dispatcher.onNotification(OrderNotificationEvent.newOrder(order(0L)));
+        assertThat(sending.await(1, TimeUnit.SECONDS)).isTrue();
+        for (long id = 1; id <= 10; id++) {
+            dispatcher.onNotification(OrderNotificationEvent.statusChange(order(id), OrderStatus.PENDING, OrderStatus.CONFIRMED));
+        }
+
+        // 队列已满时统计更新留到下一个间隔
+        dispatcher.flushStatistics();
+
+        OrderNotificationDispatcher.Metrics blocked = dispatcher.getMetrics();
+        assertThat(blocked.queueDepth()).isEqualTo(4);
+        // 6个订单通知被丢弃，统计更新只是推迟
+        assertThat(blocked.dropped()).isEqualTo(6);
+        assertThat(blocked.deferred()).isEqualTo(1);
+        assertThat(blocked.merged()).isEqualTo(10);
+
+        release.countDown();
+        verify(notificationService, timeout(1000).times(4)).notifyOrderStatusChange(any(), any(), any());
+        dispatcher.flushStatistics();
+        verify(notificationService, timeout(1000).times(1)).notifyQueueStatisticsUpdate();
+    }
+
+    private OrderNotificationDispatcherImpl start(int capacity) {
+        OrderNotificationDispatcherImpl started = new OrderNotificationDispatcherImpl(notificationService, capacity);
+        started.start();
+        return started;
+    }
+
+    private static Order order(Long id) {
+        Order order = new Order();
+        order.setId(id);
+        order.setPickupCode("000001");
+        return order;
+    }
+}
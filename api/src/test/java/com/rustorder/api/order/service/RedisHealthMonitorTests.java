@@ -0,0 +1,81 @@
+package com.rustorder.api.order.service;
+
+import com.rustorder.api.order.service.impl.RedisHealthMonitorImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 半开状态下同一时刻只放行一个试探请求
+ */
+class RedisHealthMonitorTests {
+
+    private static final long TRIAL_TIMEOUT = 200;
+
+    @SuppressWarnings("unchecked")
+    private final RedisTemplate<String, Object> redisTemplate = mock(RedisTemplate.class);
+    private RedisHealthMonitorImpl monitor;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        ObjectProvider<RedisTemplate<String, Object>> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(redisTemplate);
+        monitor = new RedisHealthMonitorImpl(provider, 3, 2, TRIAL_TIMEOUT);
+
+        // 启动时Redis不可用，直接熔断；之后探测成功进入半开状态
+        when(redisTemplate.execute(any(RedisCallback.class))).thenThrow(new RedisConnectionFailureException("down"));
+        monitor.init();
+        assertThat(monitor.getState()).isEqualTo(RedisHealthMonitor.State.OPEN);
+        assertThat(monitor.allowRequest()).isFalse();
+        when(redisTemplate.execute(any(RedisCallback.class))).thenReturn("PONG");
+        monitor.probe();
+        assertThat(monitor.getState()).isEqualTo(RedisHealthMonitor.State.HALF_OPEN);
+    }
+
+    @Test
+    void admitsOneTrialAtATimeUntilEnoughSucceed() {
+        assertThat(monitor.allowRequest()).isTrue();
+        assertThat(monitor.allowRequest()).isFalse();
+        assertThat(monitor.allowRequest()).isFalse();
+
+        monitor.recordSuccess();
+        assertThat(monitor.getState()).isEqualTo(RedisHealthMonitor.State.HALF_OPEN);
+        assertThat(monitor.allowRequest()).isTrue();
+        assertThat(monitor.allowRequest()).isFalse();
+
+        monitor.recordSuccess();
+        assertThat(monitor.getState()).isEqualTo(RedisHealthMonitor.State.CLOSED);
+        assertThat(monitor.allowRequest()).isTrue();
+        assertThat(monitor.allowRequest()).isTrue();
+    }
+
+    @Test
+    void aFailedTrialReopensTheCircuit() {
+        assertThat(monitor.allowRequest()).isTrue();
+
+        monitor.recordFailure(new RedisConnectionFailureException("still down"));
+
+        assertThat(monitor.getState()).isEqualTo(RedisHealthMonitor.State.OPEN);
+        assertThat(monitor.allowRequest()).isFalse();
+    }
+
+    @Test
+    void aTrialThatNeverReportsIsReplacedAfterTheTimeout() throws InterruptedException {
+        assertThat(monitor.allowRequest()).isTrue();
+        assertThat(monitor.allowRequest()).isFalse();
+
+        Thread.sleep(TRIAL_TIMEOUT + 50);
+
+        assertThat(monitor.allowRequest()).isTrue();
+        assertThat(monitor.allowRequest()).isFalse();
+    }
+}
@@ -0,0 +1,103 @@
+package com.rustorder.api.order.support;
+
+import com.rustorder.api.order.model.Cart;
+import com.rustorder.api.order.model.CartItem;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CartHashCodecTests {
+
+    private static final String NOODLES = CartHashCodec.itemField("牛肉面", "主食");
+    private static final String TEA = CartHashCodec.itemField("酸梅汤", "饮品");
+    private static final String ROLLS = CartHashCodec.itemField("春卷", "小食");
+
+    @Test
+    void itemsAreOrderedByTheirFirstAddTime() {
+        // HashMap的遍历顺序与加入顺序无关
+        Map<String, String> hash = new HashMap<>();
+        put(hash, TEA, 1, 3000L, 6.5);
+        put(hash, NOODLES, 2, 1000L, 18.0);
+        put(hash, ROLLS, 3, 2000L, 8.0);
+        hash.put(CartHashCodec.CREATED_AT, "1000");
+        hash.put(CartHashCodec.UPDATED_AT, "3000");
+
+        Cart cart = CartHashCodec.decode("user-1", hash);
+
+        assertThat(cart.getItems()).extracting(CartItem::getName).containsExactly("牛肉面", "春卷", "酸梅汤");
+        assertThat(cart.getItems().get(0).getOrderType()).isEqualTo("主食");
+        assertThat(cart.getTotalQuantity()).isEqualTo(6);
+        assertThat(cart.getTotalPrice()).isEqualTo(18.0 * 2 + 8.0 * 3 + 6.5);
+        assertThat(cart.getCreatedAt()).isEqualTo(new Date(1000L));
+        assertThat(cart.getUpdatedAt()).isEqualTo(new Date(3000L));
+    }
+
+    @Test
+    void skipsItemsWithoutQuantityOrMetadata() {
+        Map<String, String> hash = new HashMap<>();
+        put(hash, NOODLES, 0, 1000L, 18.0);
+        put(hash, ROLLS, -2, 2000L, 8.0);
+        hash.put(CartHashCodec.QUANTITY_PREFIX + TEA, "1"); // HINCRBY已执行但元数据缺失
+
+        Cart cart = CartHashCodec.decode("user-1", hash);
+
+        assertThat(cart.getItems()).isEmpty();
+    }
+
+    @Test
+    void keepsAMissingPrice() {
+        Map<String, String> hash = new HashMap<>();
+        hash.put(CartHashCodec.QUANTITY_PREFIX + NOODLES, "2");
+        hash.put(CartHashCodec.META_PREFIX + NOODLES, CartHashCodec.meta(1000L, null));
+
+        Cart cart = CartHashCodec.decode("user-1", hash);
+
+        assertThat(cart.getItems()).singleElement().satisfies(item -> {
+            assertThat(item.getPrice()).isNull();
+            assertThat(item.getQuantity()).isEqualTo(2);
+        });
+    }
+
+    @Test
+    void decodesTheFlatListReturnedByScripts() {
+        Map<String, String> hash = new LinkedHashMap<>();
+        put(hash, NOODLES, 1, 1000L, 18.0);
+        List<Object> flat = new ArrayList<>();
+        hash.forEach((field, value) -> {
+            flat.add(field);
+            flat.add(value);
+        });
+
+        assertThat(CartHashCodec.decode("user-1", flat).getItems()).extracting(CartItem::getName).containsExactly("牛肉面");
+        assertThat(CartHashCodec.isLegacy(flat)).isFalse();
+        assertThat(CartHashCodec.isLegacy(List.of(CartHashCodec.LEGACY))).isTrue();
+    }
+
+    @Test
+    void legacyCartsConvertToHashFieldsInTheSameOrder() {
+        Cart legacy = new Cart("user-1");
+        legacy.addItem(new CartItem("酸梅汤", "饮品", 6.5, 1));
+        legacy.addItem(new CartItem("牛肉面", "主食", null, 2));
+        legacy.addItem(new CartItem("春卷", "小食", 8.0, 3));
+        legacy.setCreatedAt(new Date(5000L));
+
+        List<String> flat = CartHashCodec.encode(legacy, 9000L);
+        Cart migrated = CartHashCodec.decode("user-1", flat);
+
+        assertThat(migrated.getItems()).usingRecursiveFieldByFieldElementComparator().isEqualTo(legacy.getItems());
+        assertThat(migrated.getCreatedAt()).isEqualTo(new Date(5000L));
+        assertThat(migrated.getUpdatedAt()).isEqualTo(legacy.getUpdatedAt());
+    }
+
+    private static void put(Map<String, String> hash, String item, int quantity, long addedAt, Double price) {
+        hash.put(CartHashCodec.QUANTITY_PREFIX + item, String.valueOf(quantity));
+        hash.put(CartHashCodec.META_PREFIX + item, CartHashCodec.meta(addedAt, price));
+    }
+}
@@ -0,0 +1,83 @@
+package com.rustorder.api.order.support;
+
+import com.rustorder.api.order.model.Cart;
+import com.rustorder.api.order.model.CartItem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 购物车JSON与二进制格式的编解码耗时对比，编码后的大小在启动时打印
+ * 运行方式（api目录下）：
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt -Dmdep.includeScope=test
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) com.rustorder.api.order.support.CartSerializationBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CartSerializationBenchmark {
+
+    @Param({"1", "6", "20"})
+    private int items;
+
+    private GenericJackson2JsonRedisSerializer json;
+    private CompactRedisSerializer binary;
+    private Cart cart;
+    private byte[] jsonBytes;
+    private byte[] binaryBytes;
+
+    @Setup
+    public void setUp() {
+        json = new GenericJackson2JsonRedisSerializer();
+        binary = new CompactRedisSerializer(List.of(new CartRedisCodec()), json, true);
+        cart = new Cart("user-" + items);
+        for (int i = 0; i < items; i++) {
+            cart.addItem(new CartItem("菜品" + i, i % 2 == 0 ? "主食" : "饮品", 10.0 + i, 1 + i % 3));
+        }
+        jsonBytes = json.serialize(cart);
+        binaryBytes = binary.serialize(cart);
+        System.out.printf("%n%d个商品：JSON %d字节，二进制 %d字节%n", items, jsonBytes.length, binaryBytes.length);
+    }
+
+    @Benchmark
+    public byte[] encodeJson() {
+        return json.serialize(cart);
+    }
+
+    @Benchmark
+    public byte[] encodeBinary() {
+        return binary.serialize(cart);
+    }
+
+    @Benchmark
+    public Object decodeJson() {
+        return json.deserialize(jsonBytes);
+    }
+
+    @Benchmark
+    public Object decodeBinary() {
+        return binary.deserialize(binaryBytes);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(CartSerializationBenchmark.class.getSimpleName()).build()).run();
+    }
+}
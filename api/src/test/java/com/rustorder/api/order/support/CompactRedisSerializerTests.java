@@ -0,0 +1,91 @@
+package com.rustorder.api.order.support;
+
+import com.rustorder.api.order.model.Cart;
+import com.rustorder.api.order.model.CartItem;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CompactRedisSerializerTests {
+
+    private final GenericJackson2JsonRedisSerializer json = new GenericJackson2JsonRedisSerializer();
+    private final CompactRedisSerializer binary = new CompactRedisSerializer(List.of(new CartRedisCodec()), json, true);
+
+    @Test
+    void cartRoundTripsThroughBinaryFormatAndIsSmallerThanJson() {
+        Cart cart = cart();
+
+        byte[] bytes = binary.serialize(cart);
+        Cart read = (Cart) binary.deserialize(bytes);
+
+        assertThat(bytes[0]).isEqualTo(CompactRedisSerializer.MAGIC);
+        assertThat(bytes.length).isLessThan(json.serialize(cart).length / 3);
+        assertSameCart(read, cart);
+    }
+
+    @Test
+    void readsJsonWrittenBeforeTheSwitch() {
+        Cart cart = cart();
+
+        assertSameCart((Cart) binary.deserialize(json.serialize(cart)), cart);
+        assertThat(binary.deserialize(json.serialize("legacy"))).isEqualTo("legacy");
+    }
+
+    @Test
+    void jsonModeAndUnregisteredTypesWriteJsonThatOlderReadersUnderstand() {
+        CompactRedisSerializer jsonMode = new CompactRedisSerializer(List.of(new CartRedisCodec()), json, false);
+        Cart cart = cart();
+
+        assertSameCart((Cart) json.deserialize(jsonMode.serialize(cart)), cart);
+        assertThat(json.deserialize(binary.serialize("plain"))).isEqualTo("plain");
+        // 关闭二进制写入后仍能读取已写入的二进制数据
+        assertSameCart((Cart) jsonMode.deserialize(binary.serialize(cart)), cart);
+    }
+
+    @Test
+    void nullFieldsAndEmptyCartsSurvive() {
+        Cart cart = new Cart();
+        cart.setItems(List.of(new CartItem(null, null, null, null)));
+
+        Cart read = (Cart) binary.deserialize(binary.serialize(cart));
+
+        assertThat(read.getUserId()).isNull();
+        assertThat(read.getCreatedAt()).isNull();
+        assertThat(read.getItems()).singleElement().satisfies(item -> {
+            assertThat(item.getName()).isNull();
+            assertThat(item.getPrice()).isNull();
+        });
+        assertThat(binary.deserialize(binary.serialize(null))).isNull();
+    }
+
+    @Test
+    void rejectsFormatVersionsFromNewerWriters() {
+        byte[] bytes = binary.serialize(cart());
+        bytes[2]++;
+
+        assertThatThrownBy(() -> binary.deserialize(bytes)).isInstanceOf(SerializationException.class);
+    }
+
+    private static Cart cart() {
+        Cart cart = new Cart("user-1");
+        cart.addItem(new CartItem("宫保鸡丁饭", "主食", 28.0, 2));
+        cart.addItem(new CartItem("酸梅汤", "饮品", 6.5, 1));
+        cart.addItem(new CartItem("春卷", "小食", 0.1, 3));
+        cart.setCreatedAt(new Date(1_700_000_000_000L));
+        return cart;
+    }
+
+    private static void assertSameCart(Cart actual, Cart expected) {
+        assertThat(actual.getUserId()).isEqualTo(expected.getUserId());
+        assertThat(actual.getCreatedAt()).isEqualTo(expected.getCreatedAt());
+        assertThat(actual.getUpdatedAt()).isEqualTo(expected.getUpdatedAt());
+        assertThat(actual.getItems()).usingRecursiveFieldByFieldElementComparator().isEqualTo(expected.getItems());
+        assertThat(actual.getTotalPrice()).isEqualTo(expected.getTotalPrice());
+    }
+}
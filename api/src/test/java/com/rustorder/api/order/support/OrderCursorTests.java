@@ -0,0 +1,36 @@
+package com.rustorder.api.order.support;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OrderCursorTests {
+
+    @Test
+    void roundTripsWithMicrosecondPrecision() {
+        Timestamp createdAt = Timestamp.from(Instant.parse("2024-01-01T12:00:00.123456Z"));
+
+        OrderCursor cursor = OrderCursor.decode(new OrderCursor(createdAt, 42L).encode());
+
+        assertThat(cursor.createdAt()).isEqualTo(createdAt);
+        assertThat(cursor.id()).isEqualTo(42L);
+    }
+
+    @Test
+    void encodesOrdersWithoutCreatedAt() {
+        OrderCursor cursor = OrderCursor.decode(new OrderCursor(null, 7L).encode());
+
+        assertThat(cursor.createdAt()).isNull();
+        assertThat(cursor.id()).isEqualTo(7L);
+    }
+
+    @Test
+    void rejectsMalformedCursors() {
+        assertThatThrownBy(() -> OrderCursor.decode("not a cursor")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> OrderCursor.decode("LTo6Nw")).isInstanceOf(IllegalArgumentException.class);
+    }
+}
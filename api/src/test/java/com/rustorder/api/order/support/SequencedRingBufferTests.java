@@ -0,0 +1,38 @@
+package com.rustorder.api.order.support;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SequencedRingBufferTests {
+
+    @Test
+    void returnsEverythingAfterTheGivenSequenceInOrder() {
+        SequencedRingBuffer<String> buffer = new SequencedRingBuffer<>(4);
+        for (int i = 0; i < 3; i++) {
+            buffer.append(sequence -> "delta-" + sequence);
+        }
+
+        assertThat(buffer.lastSequence()).isEqualTo(3);
+        assertThat(buffer.since(0)).contains(List.of("delta-1", "delta-2", "delta-3"));
+        assertThat(buffer.since(2)).contains(List.of("delta-3"));
+        // 已是最新，没有需要补齐的增量
+        assertThat(buffer.since(3)).contains(List.of());
+    }
+
+    @Test
+    void requiresASnapshotOnceTheGapHasBeenOverwritten() {
+        SequencedRingBuffer<Long> buffer = new SequencedRingBuffer<>(4);
+        for (int i = 0; i < 10; i++) {
+            buffer.append(sequence -> sequence);
+        }
+
+        // 只保留7-10
+        assertThat(buffer.since(6)).contains(List.of(7L, 8L, 9L, 10L));
+        assertThat(buffer.since(5)).isEmpty();
+        // 客户端的序号比服务端还新（服务端已重启）
+        assertThat(buffer.since(11)).isEmpty();
+    }
+}
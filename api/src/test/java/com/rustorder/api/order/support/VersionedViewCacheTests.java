@@ -0,0 +1,39 @@
+package com.rustorder.api.order.support;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VersionedViewCacheTests {
+
+    private final VersionedViewCache cache = new VersionedViewCache();
+    private final AtomicInteger renders = new AtomicInteger();
+
+    @Test
+    void rendersEachViewOncePerVersion() {
+        assertThat(cache.rendered(1, "popular:6", this::render)).isEqualTo("view-1");
+        assertThat(cache.rendered(1, "popular:6", this::render)).isEqualTo("view-1");
+        assertThat(cache.rendered(1, "popular:3", this::render)).isEqualTo("view-2");
+
+        // 版本前进后整体失效
+        assertThat(cache.rendered(2, "popular:6", this::render)).isEqualTo("view-3");
+        assertThat(cache.rendered(2, "popular:6", this::render)).isEqualTo("view-3");
+        assertThat(renders).hasValue(3);
+    }
+
+    @Test
+    void doesNotCacheRendersForAnOlderVersion() {
+        cache.rendered(2, "popular:6", this::render);
+
+        // 请求取得版本号之后版本已经前进，结果不写入缓存，也不替换新版本的缓存
+        assertThat(cache.rendered(1, "popular:6", this::render)).isEqualTo("view-2");
+        assertThat(cache.rendered(1, "popular:6", this::render)).isEqualTo("view-3");
+        assertThat(cache.rendered(2, "popular:6", this::render)).isEqualTo("view-1");
+    }
+
+    private String render() {
+        return "view-" + renders.incrementAndGet();
+    }
+}
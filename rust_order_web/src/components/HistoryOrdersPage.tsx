@@ -1,5 +1,5 @@
 import { useState, useEffect } from 'react';
-import { res } from '../utils/res';
+import { resPage } from '../utils/res';
 import type { OrderListModel } from '../types/order';
 import { 
   Button, 
@@ -13,9 +13,14 @@ import {
   Input
 } from "@heroui/react";
 
+const HISTORY_STATUSES = ['COMPLETED', 'CANCELLED', 'READY'];
+const PAGE_SIZE = 20;
+
 const HistoryOrdersPage = () => {
   const [orders, setOrders] = useState<OrderListModel>([]);
+  const [nextCursor, setNextCursor] = useState<string | null>(null);
   const [loading, setLoading] = useState(true);
+  const [loadingMore, setLoadingMore] = useState(false);
   const [statusFilter, setStatusFilter] = useState<string>('all');
   const [searchTerm, setSearchTerm] = useState('');
 
@@ -25,18 +30,19 @@ const HistoryOrdersPage = () => {
     { key: 'READY', label: '待取餐', color: 'warning' as const }
   ];
 
+  // 按状态在服务端过滤，每次取一页（按创建时间倒序），通过游标继续加载
+  const fetchPage = (cursor: string | null) => resPage('/api/orders', {
+    status: statusFilter === 'all' ? HISTORY_STATUSES.join(',') : statusFilter,
+    size: PAGE_SIZE,
+    cursor
+  });
+
   const getHistoryOrders = async () => {
     try {
       setLoading(true);
-      const allOrders = await res('GET', '/api/orders');
-      
-      const historyOrders = (allOrders || []).filter((order: any) => 
-        ['COMPLETED', 'CANCELLED', 'READY'].includes(order.orderStatus)
-      ).sort((a: any, b: any) => 
-        new Date(b.updatedAt || b.createdAt).getTime() - new Date(a.updatedAt || a.createdAt).getTime()
-      );
-      
-      setOrders(historyOrders);
+      const page = await fetchPage(null);
+      setOrders(page.items || []);
+      setNextCursor(page.nextCursor);
     } catch (err) {
       console.error('获取历史订单失败:', err);
     } finally {
@@ -44,9 +50,25 @@ const HistoryOrdersPage = () => {
     }
   };
 
+  const loadMoreOrders = async () => {
+    if (!nextCursor) {
+      return;
+    }
+    try {
+      setLoadingMore(true);
+      const page = await fetchPage(nextCursor);
+      setOrders(prev => [...prev, ...(page.items || [])]);
+      setNextCursor(page.nextCursor);
+    } catch (err) {
+      console.error('加载更多历史订单失败:', err);
+    } finally {
+      setLoadingMore(false);
+    }
+  };
+
   useEffect(() => {
     getHistoryOrders();
-  }, []);
+  }, [statusFilter]);
 
   const getStatusColor = (status: string) => {
     const statusInfo = orderStatuses.find(s => s.key === status);
@@ -58,14 +80,12 @@ const HistoryOrdersPage = () => {
     return statusInfo?.label || status;
   };
 
+  // 搜索只在已加载的订单中进行
   const filteredOrders = orders.filter(order => {
-    const matchesStatus = statusFilter === 'all' || order.orderStatus === statusFilter;
-    const matchesSearch = searchTerm === '' || 
+    return searchTerm === '' || 
       order.pickupCode?.includes(searchTerm) ||
       order.userId?.toLowerCase().includes(searchTerm.toLowerCase()) ||
       order.items?.some(item => item.dishName.toLowerCase().includes(searchTerm.toLowerCase()));
-    
-    return matchesStatus && matchesSearch;
   });
 
   const totalRevenue = orders
@@ -114,7 +134,7 @@ const HistoryOrdersPage = () => {
               </svg>
             </div>
             <div className="ml-4">
-              <p className="text-sm font-medium text-gray-600">总订单数</p>
+              <p className="text-sm font-medium text-gray-600">已加载订单数</p>
               <p className="text-2xl font-bold text-gray-900">{orders.length}</p>
             </div>
           </div>
@@ -260,6 +280,18 @@ const HistoryOrdersPage = () => {
             </Card>
           ))
         )}
+        {nextCursor && (
+          <div className="flex justify-center">
+            <Button
+              variant="flat"
+              color="primary"
+              onPress={loadMoreOrders}
+              isLoading={loadingMore}
+            >
+              加载更多
+            </Button>
+          </div>
+        )}
       </div>
     </div>
   );
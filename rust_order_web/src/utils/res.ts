@@ -32,4 +32,29 @@ export async function res(method: string, url: string, data: {[key: string]: any
         console.error(`API 请求失败: ${method} ${url}`, error);
         throw error;
     }
-}
\ No newline at end of file
+}
+
+// 读取键集分页接口的一页，下一页游标在响应头X-Next-Cursor中，没有下一页时为null
+export async function resPage(url: string, data: {[key: string]: any} = {}) {
+    try {
+        console.log(`API 请求: GET ${url}`, data);
+
+        const params = Object.keys(data)
+            .filter(v => data[v] !== undefined && data[v] !== null)
+            .map(v => `${v}=${encodeURIComponent(data[v])}`).join('&');
+        const fullUrl = params ? `${URL}${url}?${params}` : `${URL}${url}`;
+
+        const response = await fetch(fullUrl);
+        if (!response.ok) {
+            throw new Error(`HTTP ${response.status}: ${response.statusText}`);
+        }
+
+        return {
+            items: await response.json(),
+            nextCursor: response.headers.get('X-Next-Cursor')
+        };
+    } catch (error) {
+        console.error(`API 请求失败: GET ${url}`, error);
+        throw error;
+    }
+}